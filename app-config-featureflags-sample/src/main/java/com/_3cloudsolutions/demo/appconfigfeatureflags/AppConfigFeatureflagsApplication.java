@@ -4,9 +4,11 @@ import com._3cloudsolutions.demo.appconfigfeatureflags.models.DemoValue;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableConfigurationProperties({DemoValue.class})
+@EnableScheduling
 public class AppConfigFeatureflagsApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,86 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Holds rendered JSON bodies for responses that only change when configuration does. Each body is
+ * serialized once per configuration version and then served as the same byte array, with an ETag so
+ * clients can revalidate without downloading it again. Refreshing configuration moves to a new version,
+ * and each body is rendered again the next time it is asked for.
+ */
+@Slf4j
+@Component
+public class JsonResponseCache {
+
+    private final ObjectWriter writer = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .writer();
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+    /**
+     * @param key  identifies the response, e.g. the flag state it was rendered for
+     * @param body builds the object to serialize when there is no body for the current version
+     */
+    public CachedResponse get(String key, Supplier<Object> body) {
+        long current = version.get();
+        CachedResponse response = responses.get(key);
+        if (response != null && response.version == current) {
+            return response;
+        }
+        // Rendered against the version read before building the body, so a refresh that lands
+        // part way through leaves an entry that is already stale and gets rendered again
+        CachedResponse rendered = render(current, body.get());
+        responses.put(key, rendered);
+        return rendered;
+    }
+
+    @EventListener({EnvironmentChangeEvent.class, RefreshScopeRefreshedEvent.class})
+    public void invalidate() {
+        log.debug("Configuration changed, cached responses will be rendered again");
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private CachedResponse render(long version, Object body) {
+        try {
+            byte[] json = writer.writeValueAsBytes(body);
+            return new CachedResponse(version, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedResponse {
+        private final long version;
+        // Shared by every request, never modify
+        private final byte[] body;
+        private final String etag;
+    }
+}
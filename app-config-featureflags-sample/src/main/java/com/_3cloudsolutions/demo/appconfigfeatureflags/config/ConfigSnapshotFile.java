@@ -0,0 +1,185 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the last-known-good configuration snapshot. The file is a magic number, an entry count,
+ * the entries as key, flag and value, and a CRC32 of everything before it. Every value is encrypted with
+ * AES-GCM, with the key name as associated data so an encrypted value cannot be moved to another key. App
+ * Configuration resolves Key Vault references itself, so nothing tells a secret from any other value.
+ */
+@Slf4j
+public class ConfigSnapshotFile {
+
+    private static final int MAGIC = 0x43534e31;
+    private static final byte ENCRYPTED = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path file;
+    private final SecretKey key;
+    private boolean warnedNoKey;
+
+    public ConfigSnapshotFile(ConfigSnapshotProperties properties) {
+        this.file = Paths.get(properties.getFile()).toAbsolutePath();
+        String encoded = properties.getKey();
+        this.key = encoded == null || encoded.isEmpty()
+                ? null
+                : new SecretKeySpec(Base64.getDecoder().decode(encoded), "AES");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the values to a temporary file beside the snapshot and moves it into place, so the snapshot on
+     * disk is always a complete one, old or new. Without a key no snapshot is kept, and one left from before
+     * is deleted.
+     *
+     * @return the number of values written
+     */
+    public synchronized int write(Map<String, String> values) throws IOException {
+        if (key == null) {
+            if (!warnedNoKey) {
+                warnedNoKey = true;
+                log.warn("No config-snapshot.key is set, configuration is not saved to a snapshot");
+            }
+            Files.deleteIfExists(file);
+            return 0;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = encrypt(name, entry.getValue().getBytes(StandardCharsets.UTF_8));
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeByte(ENCRYPTED);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return values.size();
+    }
+
+    /**
+     * Maps the snapshot into memory and checks it. Only the keys are read up front; values are decoded as
+     * they are asked for.
+     *
+     * @return the snapshot, or null if there is none or it cannot be used
+     */
+    public ConfigSnapshotPropertySource read(String name) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int end = buffer.limit() - Long.BYTES;
+            if (end < 2 * Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getLong(end) != crc(buffer, end)) {
+                log.warn("Ignoring damaged configuration snapshot {}", file);
+                return null;
+            }
+            ByteBuffer entries = buffer.duplicate().position(Integer.BYTES);
+            int count = entries.getInt();
+            Map<String, ConfigSnapshotPropertySource.Entry> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[entries.getInt()];
+                entries.get(key);
+                boolean encrypted = entries.get() == ENCRYPTED;
+                int length = entries.getInt();
+                index.put(new String(key, StandardCharsets.UTF_8),
+                        new ConfigSnapshotPropertySource.Entry(encrypted, entries.position(), length));
+                entries.position(entries.position() + length);
+            }
+            return new ConfigSnapshotPropertySource(name, buffer, index, this);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not read configuration snapshot {}", file, ex);
+            return null;
+        }
+    }
+
+    private static long crc(ByteBuffer buffer, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        return crc.getValue();
+    }
+
+    /**
+     * @return the value, or null if it is encrypted and cannot be decrypted with the configured key
+     */
+    String decode(String name, boolean encrypted, ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        if (!encrypted) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (key == null) {
+            log.warn("No config-snapshot.key is set to decrypt {} from the snapshot", name);
+            return null;
+        }
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(name.getBytes(StandardCharsets.UTF_8));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException ex) {
+            log.warn("Could not decrypt {} from the snapshot, was config-snapshot.key changed?", name);
+            return null;
+        }
+    }
+
+    private byte[] encrypt(byte[] name, byte[] value) throws IOException {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(name);
+            byte[] sealed = cipher.doFinal(value);
+            ByteBuffer result = ByteBuffer.allocate(IV_LENGTH + sealed.length);
+            return result.put(iv).put(sealed).array();
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Could not encrypt a snapshot value", ex);
+        }
+    }
+}
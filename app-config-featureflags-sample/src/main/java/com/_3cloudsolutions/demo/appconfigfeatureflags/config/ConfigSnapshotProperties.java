@@ -0,0 +1,25 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Settings for the last-known-good configuration snapshot, bound from config-snapshot.
+ */
+@Data
+public class ConfigSnapshotProperties {
+    private String file = "config-snapshot.bin";
+    // Base64 AES key the snapshot is encrypted with; without one, no snapshot is kept
+    private String key;
+    // How soon reconciling with the store is tried again while it cannot be reached
+    private Duration retryDelay = Duration.ofSeconds(30);
+
+    public static ConfigSnapshotProperties bind(Environment environment) {
+        return Binder.get(environment)
+                .bind("config-snapshot", ConfigSnapshotProperties.class)
+                .orElseGet(ConfigSnapshotProperties::new);
+    }
+}
@@ -0,0 +1,22 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.FeatureFlagEvaluator;
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.FeatureFlagGateInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class FeatureFlagWebConfig implements WebMvcConfigurer {
+
+    private FeatureFlagEvaluator featureFlagEvaluator;
+
+    public FeatureFlagWebConfig(FeatureFlagEvaluator featureFlagEvaluator) {
+        this.featureFlagEvaluator = featureFlagEvaluator;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new FeatureFlagGateInterceptor(featureFlagEvaluator));
+    }
+}
@@ -0,0 +1,19 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bootstrap configuration for the local profile, registered in META-INF/spring.factories so the file is
+ * read at the point App Configuration would have been.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "local-configuration", name = "enabled", havingValue = "true")
+public class LocalConfigurationBootConfig {
+
+    @Bean
+    public LocalConfigurationPropertySourceLocator localConfigurationPropertySourceLocator() {
+        return new LocalConfigurationPropertySourceLocator();
+    }
+}
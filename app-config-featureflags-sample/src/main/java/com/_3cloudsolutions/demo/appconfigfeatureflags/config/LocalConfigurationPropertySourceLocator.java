@@ -0,0 +1,75 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for App Configuration when running locally. Serves the keys and feature flags from a YAML or
+ * properties file, written with the names the application sees, i.e. without the store's key filter:
+ * content.value1 rather than /ff-demo/content.value1, and feature flags under feature-management.
+ */
+@Slf4j
+public class LocalConfigurationPropertySourceLocator implements PropertySourceLocator {
+
+    public static final String NAME = "local-configuration";
+    public static final String FILE_PROPERTY = "local-configuration.file";
+
+    @Override
+    public PropertySource<?> locate(Environment environment) {
+        Path file = file(environment);
+        Map<String, Object> values = load(file);
+        log.info("Serving {} configuration keys from {}", values.size(), file.toAbsolutePath());
+        return new MapPropertySource(NAME, values);
+    }
+
+    static Path file(Environment environment) {
+        return Paths.get(environment.getProperty(FILE_PROPERTY, "local-configuration.yml"));
+    }
+
+    /**
+     * @return the file flattened to property names and plain values, or no values if it does not exist yet
+     */
+    static Map<String, Object> load(Path file) {
+        if (!Files.exists(file)) {
+            return Map.of();
+        }
+        String name = file.getFileName().toString();
+        PropertySourceLoader loader = name.endsWith(".properties")
+                ? new PropertiesPropertySourceLoader()
+                : new YamlPropertySourceLoader();
+        try {
+            List<PropertySource<?>> documents = loader.load(NAME, new FileSystemResource(file));
+            Map<String, Object> values = new HashMap<>();
+            for (PropertySource<?> document : documents) {
+                EnumerablePropertySource<?> source = (EnumerablePropertySource<?>) document;
+                for (String key : source.getPropertyNames()) {
+                    Object value = source.getProperty(key);
+                    values.putIfAbsent(key, value instanceof OriginTrackedValue
+                            ? ((OriginTrackedValue) value).getValue()
+                            : value);
+                }
+            }
+            return values;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + file, ex);
+        }
+    }
+}
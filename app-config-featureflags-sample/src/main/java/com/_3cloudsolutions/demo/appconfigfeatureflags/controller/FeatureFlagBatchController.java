@@ -0,0 +1,104 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.controller;
+
+import com._3cloudsolutions.demo.appconfigfeatureflags.dto.FlagEvaluationDTO;
+import com._3cloudsolutions.demo.appconfigfeatureflags.dto.FlagEvaluationRequestDTO;
+import com._3cloudsolutions.demo.appconfigfeatureflags.dto.FlagEvaluationRequestDTO.TargetingContextDTO;
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.FeatureFlagEvaluator;
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.TargetingContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Evaluates many flags for many users in one call. Flags whose answer does not depend on the user are
+ * evaluated once for the whole batch; the rest are evaluated per user, users in parallel. Each user's
+ * results are streamed as one NDJSON line as soon as they are ready, so lines may arrive out of order.
+ * Only defined flags can be asked for.
+ */
+@RestController
+public class FeatureFlagBatchController {
+
+    private static final ObjectWriter writer = new ObjectMapper().writerFor(FlagEvaluationDTO.class);
+
+    private FeatureFlagEvaluator featureFlagEvaluator;
+    private int maxEvaluations;
+
+    public FeatureFlagBatchController(FeatureFlagEvaluator featureFlagEvaluator,
+                                      @Value("${feature-flags.batch.max-evaluations:100000}") int maxEvaluations) {
+        this.featureFlagEvaluator = featureFlagEvaluator;
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    @PostMapping(value = "/flags/evaluate", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    public Flux<String> evaluate(@RequestBody FlagEvaluationRequestDTO request) {
+        List<TargetingContextDTO> contexts = request.getContexts() == null ? List.of() : request.getContexts();
+        List<String> features = request.getFeatures() == null ? List.of() : request.getFeatures();
+        if ((long) contexts.size() * features.size() > maxEvaluations) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + maxEvaluations + " evaluations (contexts x features) per request");
+        }
+        Set<String> known = featureFlagEvaluator.getFeatureNames();
+        List<String> unknown = features.stream()
+                .filter(feature -> !known.contains(feature))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown feature flags " + unknown);
+        }
+
+        // Shared flags may be left to FeatureManager, which blocks, so they run on boundedElastic
+        Mono<Map<String, Boolean>> shared = Flux.fromIterable(features)
+                .distinct()
+                .filter(featureFlagEvaluator::isContextFree)
+                .flatMap(feature -> Mono.fromCallable(() -> featureFlagEvaluator.isEnabled(feature, TargetingContext.ANONYMOUS))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(enabled -> Map.entry(feature, enabled)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+
+        return shared.flatMapMany(sharedFlags -> Flux.fromIterable(contexts)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .map(context -> toLine(evaluate(context, features, sharedFlags)))
+                .sequential());
+    }
+
+    private FlagEvaluationDTO evaluate(TargetingContextDTO context, List<String> features,
+                                       Map<String, Boolean> sharedFlags) {
+        TargetingContext targetingContext = new TargetingContext(
+                context.getUserId() == null ? "" : context.getUserId(),
+                context.getGroups() == null ? List.of() : context.getGroups());
+        Map<String, Boolean> flags = new LinkedHashMap<>();
+        for (String feature : features) {
+            Boolean enabled = sharedFlags.get(feature);
+            flags.put(feature, enabled != null ? enabled : featureFlagEvaluator.isEnabled(feature, targetingContext));
+        }
+        return new FlagEvaluationDTO(context.getUserId(), flags);
+    }
+
+    private static String toLine(FlagEvaluationDTO evaluation) {
+        try {
+            return writer.writeValueAsString(evaluation) + "\n";
+        } catch (JsonProcessingException ex) {
+            throw Exceptions.propagate(ex);
+        }
+    }
+}
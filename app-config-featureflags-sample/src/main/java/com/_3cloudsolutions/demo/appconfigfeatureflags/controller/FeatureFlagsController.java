@@ -1,17 +1,15 @@
 package com._3cloudsolutions.demo.appconfigfeatureflags.controller;
 
+import com._3cloudsolutions.demo.appconfigfeatureflags.cache.JsonResponseCache;
+import com._3cloudsolutions.demo.appconfigfeatureflags.cache.JsonResponseCache.CachedResponse;
 import com._3cloudsolutions.demo.appconfigfeatureflags.dto.DemoValueDTO;
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.FeatureFlagGate;
 import com._3cloudsolutions.demo.appconfigfeatureflags.models.DemoValue;
-import com.azure.spring.cloud.feature.manager.FeatureGate;
-import com.azure.spring.cloud.feature.manager.FeatureManager;
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Mono;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -19,34 +17,40 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 public class FeatureFlagsController {
 
     private DemoValue demoValue;
-    private FeatureManager featureManager;
-    private ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private JsonResponseCache responseCache;
 
-    public FeatureFlagsController(DemoValue demoValue,
-                                  FeatureManager featureManager) {
+    public FeatureFlagsController(DemoValue demoValue, JsonResponseCache responseCache) {
         this.demoValue = demoValue;
-        this.featureManager = featureManager;
+        this.responseCache = responseCache;
     }
 
     @GetMapping(value = {"/hello", "/hellon"}, produces = APPLICATION_JSON_VALUE)
-    @FeatureGate(feature = "DemoFlag", fallback = "/helloff")
-    public Mono<String> getHelloOn() throws JsonProcessingException {
-        DemoValueDTO demoValueDTO = new DemoValueDTO(demoValue);
-        demoValueDTO.setFeatureFlagStatus("the feature flag is enabled");
-        return Mono.just(toJson(demoValueDTO));
+    @FeatureFlagGate(feature = "DemoFlag", fallback = "/helloff")
+    public ResponseEntity<byte[]> getHelloOn() {
+        return respond(responseCache.get("DemoFlag:on", () -> demoValueDTO("the feature flag is enabled")));
     }
 
     @GetMapping(value = "/helloff", produces = APPLICATION_JSON_VALUE)
-    public Mono<String> getHelloOff() throws JsonProcessingException {
+    public ResponseEntity<byte[]> getHelloOff() {
+        return respond(responseCache.get("DemoFlag:off", () -> demoValueDTO("the feature flag is not enabled")));
+    }
+
+    private DemoValueDTO demoValueDTO(String featureFlagStatus) {
         DemoValueDTO demoValueDTO = new DemoValueDTO(demoValue);
-        demoValueDTO.setFeatureFlagStatus("the feature flag is not enabled");
-        return Mono.just(toJson(demoValueDTO));
+        demoValueDTO.setFeatureFlagStatus(featureFlagStatus);
+        return demoValueDTO;
     }
 
-    private String toJson(Object object) throws JsonProcessingException {
-        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        return objectMapper.writeValueAsString(object);
+    /**
+     * A matching If-None-Match is answered with 304 and no body by Spring MVC.
+     * no-cache lets clients keep the body but makes them revalidate, since a refresh can change it at any time.
+     */
+    private ResponseEntity<byte[]> respond(CachedResponse response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(response.getEtag())
+                .body(response.getBody());
     }
 
 }
@@ -0,0 +1,13 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class FlagEvaluationDTO {
+    private String userId;
+    private Map<String, Boolean> flags;
+}
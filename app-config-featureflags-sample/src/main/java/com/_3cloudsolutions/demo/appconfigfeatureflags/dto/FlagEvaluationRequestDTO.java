@@ -0,0 +1,17 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FlagEvaluationRequestDTO {
+    private List<TargetingContextDTO> contexts;
+    private List<String> features;
+
+    @Data
+    public static class TargetingContextDTO {
+        private String userId;
+        private List<String> groups;
+    }
+}
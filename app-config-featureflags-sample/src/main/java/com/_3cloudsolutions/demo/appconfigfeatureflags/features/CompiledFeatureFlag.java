@@ -0,0 +1,36 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+/**
+ * A feature flag reduced to the work left to do per evaluation. Parameters are parsed, dates converted
+ * and audiences indexed when the flag is compiled, not when it is checked.
+ */
+@FunctionalInterface
+public interface CompiledFeatureFlag {
+
+    CompiledFeatureFlag ON = contextFree(context -> true);
+    CompiledFeatureFlag OFF = contextFree(context -> false);
+
+    boolean isEnabled(TargetingContext context);
+
+    /**
+     * True when the answer is the same whoever it is evaluated for, so one evaluation can be shared
+     * by every context in a batch.
+     */
+    default boolean isContextFree() {
+        return false;
+    }
+
+    static CompiledFeatureFlag contextFree(CompiledFeatureFlag flag) {
+        return new CompiledFeatureFlag() {
+            @Override
+            public boolean isEnabled(TargetingContext context) {
+                return flag.isEnabled(context);
+            }
+
+            @Override
+            public boolean isContextFree() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,252 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Compiles feature-management configuration into CompiledFeatureFlags. It accepts both shapes the
+ * configuration can arrive in: local configuration, where each flag is a boolean or has an enabled-for
+ * list, and the App Configuration provider's, which nests flags under featureManagement and onOff.
+ * A flag is enabled when any of its filters passes. Percentage, TimeWindow and Targeting filters are
+ * compiled; a flag using any other filter, or whose definition cannot be read, is left to the fallback.
+ * Percentage is drawn afresh on every evaluation and Targeting depends on the user, so only flags made
+ * of neither are context free.
+ */
+public final class FeatureFlagCompiler {
+
+    private FeatureFlagCompiler() {
+    }
+
+    /**
+     * @param definitions the feature-management configuration tree
+     * @param fallback    evaluates a flag by name when it cannot be compiled
+     */
+    public static Map<String, CompiledFeatureFlag> compile(Map<String, Object> definitions,
+                                                           Function<String, CompiledFeatureFlag> fallback) {
+        Map<String, CompiledFeatureFlag> flags = new HashMap<>();
+        definitions.forEach((key, value) -> {
+            String normalized = normalize(key);
+            if (normalized.equals("featuremanagement") && value instanceof Map) {
+                asMap(value).forEach((name, definition) -> flags.put(name, compileFlag(name, definition, fallback)));
+            } else if (normalized.equals("onoff") && value instanceof Map) {
+                asMap(value).forEach((name, enabled) -> flags.put(name, compileFlag(name, enabled, fallback)));
+            } else {
+                flags.put(key, compileFlag(key, value, fallback));
+            }
+        });
+        return flags;
+    }
+
+    static CompiledFeatureFlag compileFlag(String name, Object definition,
+                                           Function<String, CompiledFeatureFlag> fallback) {
+        try {
+            if (definition instanceof Boolean || definition instanceof String) {
+                return Boolean.parseBoolean(definition.toString()) ? CompiledFeatureFlag.ON : CompiledFeatureFlag.OFF;
+            }
+            Map<String, Object> feature = parameters(definition);
+            Object enabledFor = feature.get("enabledfor");
+            if (enabledFor == null) {
+                return CompiledFeatureFlag.OFF;
+            }
+            List<CompiledFeatureFlag> filters = new ArrayList<>();
+            for (Object filter : elements(enabledFor)) {
+                CompiledFeatureFlag compiled = compileFilter(name, parameters(filter));
+                if (compiled == null) {
+                    return fallback.apply(name);
+                }
+                if (compiled == CompiledFeatureFlag.ON) {
+                    return CompiledFeatureFlag.ON;
+                }
+                filters.add(compiled);
+            }
+            return anyOf(filters);
+        } catch (RuntimeException ex) {
+            return fallback.apply(name);
+        }
+    }
+
+    private static CompiledFeatureFlag compileFilter(String feature, Map<String, Object> filter) {
+        String name = String.valueOf(filter.get("name")).toLowerCase(Locale.ROOT);
+        if (name.startsWith("microsoft.")) {
+            name = name.substring("microsoft.".length());
+        }
+        if (name.endsWith("filter")) {
+            name = name.substring(0, name.length() - "filter".length());
+        }
+        Map<String, Object> parameters = filter.get("parameters") == null ? Map.of() : parameters(filter.get("parameters"));
+
+        switch (name) {
+            case "alwayson":
+                return CompiledFeatureFlag.ON;
+            case "percentage":
+                return percentage(toDouble(parameters.get("value"), 0));
+            case "timewindow":
+                return timeWindow(toInstant(parameters.get("start")), toInstant(parameters.get("end")));
+            case "targeting":
+                return targeting(feature, parameters.get("audience") == null ? Map.of() : parameters(parameters.get("audience")));
+            default:
+                return null;
+        }
+    }
+
+    private static CompiledFeatureFlag anyOf(List<CompiledFeatureFlag> filters) {
+        if (filters.isEmpty()) {
+            return CompiledFeatureFlag.OFF;
+        }
+        if (filters.size() == 1) {
+            return filters.get(0);
+        }
+        CompiledFeatureFlag[] all = filters.toArray(new CompiledFeatureFlag[0]);
+        CompiledFeatureFlag any = context -> {
+            for (CompiledFeatureFlag filter : all) {
+                if (filter.isEnabled(context)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+        return filters.stream().allMatch(CompiledFeatureFlag::isContextFree) ? CompiledFeatureFlag.contextFree(any) : any;
+    }
+
+    private static CompiledFeatureFlag percentage(double value) {
+        if (value <= 0) {
+            return CompiledFeatureFlag.OFF;
+        }
+        if (value >= 100) {
+            return CompiledFeatureFlag.ON;
+        }
+        return context -> ThreadLocalRandom.current().nextDouble(100) < value;
+    }
+
+    private static CompiledFeatureFlag timeWindow(Instant start, Instant end) {
+        if (start == null && end == null) {
+            return CompiledFeatureFlag.OFF;
+        }
+        long from = start == null ? Long.MIN_VALUE : start.toEpochMilli();
+        long to = end == null ? Long.MAX_VALUE : end.toEpochMilli();
+        return CompiledFeatureFlag.contextFree(context -> {
+            long now = System.currentTimeMillis();
+            return now >= from && now < to;
+        });
+    }
+
+    /**
+     * Listed users are always in. Otherwise a user is in when a stable hash of user, feature (and group)
+     * falls below the group's or the default rollout percentage, so the same user keeps the same answer.
+     */
+    private static CompiledFeatureFlag targeting(String feature, Map<String, Object> audience) {
+        Set<String> users = new HashSet<>();
+        Object listedUsers = audience.get("users");
+        if (listedUsers != null) {
+            elements(listedUsers).forEach(user -> users.add(String.valueOf(user)));
+        }
+        Map<String, Double> groups = new HashMap<>();
+        Object listedGroups = audience.get("groups");
+        if (listedGroups != null) {
+            for (Object group : elements(listedGroups)) {
+                Map<String, Object> parameters = parameters(group);
+                groups.put(String.valueOf(parameters.get("name")), toDouble(parameters.get("rolloutpercentage"), 0));
+            }
+        }
+        double defaultRollout = toDouble(audience.get("defaultrolloutpercentage"), 0);
+        String featureSuffix = "\n" + feature;
+
+        return context -> {
+            String user = context.getUserId();
+            if (users.contains(user)) {
+                return true;
+            }
+            for (String group : context.getGroups()) {
+                Double rollout = groups.get(group);
+                if (rollout != null && inRollout(user + featureSuffix + "\n" + group, rollout)) {
+                    return true;
+                }
+            }
+            return inRollout(user + featureSuffix, defaultRollout);
+        };
+    }
+
+    private static boolean inRollout(String contextId, double percentage) {
+        if (percentage <= 0) {
+            return false;
+        }
+        if (percentage >= 100) {
+            return true;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contextId.getBytes(StandardCharsets.UTF_8));
+            long marker = ByteBuffer.wrap(hash, 0, 4).getInt() & 0xffffffffL;
+            return marker / (double) 0xffffffffL * 100 < percentage;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Copies a configuration map with its keys lower-cased and dashes removed, so enabled-for, enabledFor
+     * and EnabledFor all read the same.
+     */
+    private static Map<String, Object> parameters(Object value) {
+        Map<String, Object> parameters = new TreeMap<>();
+        asMap(value).forEach((key, entry) -> parameters.put(normalize(key), entry));
+        return parameters;
+    }
+
+    /**
+     * Lists bound from configuration may arrive as a List or as a map keyed by index.
+     */
+    private static Collection<?> elements(Object value) {
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+        if (value instanceof Map) {
+            Map<Integer, Object> indexed = new TreeMap<>();
+            asMap(value).forEach((key, element) -> indexed.put(Integer.parseInt(key.replaceAll("[\\[\\]]", "")), element));
+            return indexed.values();
+        }
+        return List.of(value);
+    }
+
+    private static String normalize(String key) {
+        return key.replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static double toDouble(Object value, double defaultValue) {
+        return value == null ? defaultValue : Double.parseDouble(value.toString());
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value == null || value.toString().isBlank()) {
+            return null;
+        }
+        String text = value.toString();
+        try {
+            return ZonedDateTime.parse(text, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException ex) {
+            return OffsetDateTime.parse(text).toInstant();
+        }
+    }
+}
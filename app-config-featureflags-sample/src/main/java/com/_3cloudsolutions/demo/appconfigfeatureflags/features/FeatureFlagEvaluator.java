@@ -0,0 +1,171 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import com.azure.spring.cloud.feature.manager.FeatureManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates feature flags from definitions compiled when configuration loads and again whenever
+ * feature-management keys change. Within a request each flag is evaluated once and later checks reuse the
+ * answer, so a request never sees a flag change part way through.
+ * Evaluation latency is published as feature.flag.evaluation, per feature. Names that are not defined flags
+ * are timed and counted together under UNKNOWN_FEATURE, so callers cannot grow the meters without bound.
+ */
+@Slf4j
+@Component
+public class FeatureFlagEvaluator {
+
+    public static final String UNKNOWN_FEATURE = "unknown";
+    private static final String RESULTS_ATTRIBUTE = FeatureFlagEvaluator.class.getName() + ".results";
+
+    private Environment environment;
+    private FeatureManager featureManager;
+    private MeterRegistry meterRegistry;
+    private FeatureFlagUsage featureFlagUsage;
+    private volatile Map<String, CompiledFeatureFlag> flags = Map.of();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Counter memoized;
+    private final Counter compilations;
+
+    public FeatureFlagEvaluator(Environment environment, FeatureManager featureManager, MeterRegistry meterRegistry,
+                                FeatureFlagUsage featureFlagUsage) {
+        this.environment = environment;
+        this.featureManager = featureManager;
+        this.meterRegistry = meterRegistry;
+        this.featureFlagUsage = featureFlagUsage;
+        this.memoized = Counter.builder("feature.flag.memoized")
+                .description("Flag checks answered from the current request's earlier evaluation")
+                .register(meterRegistry);
+        this.compilations = Counter.builder("feature.flag.compilations").register(meterRegistry);
+        compile();
+    }
+
+    /**
+     * Both an App Configuration refresh and a local configuration edit publish the keys that changed.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith("feature-management"))) {
+            compile();
+        }
+    }
+
+    public void compile() {
+        Map<String, Object> definitions;
+        try {
+            definitions = Binder.get(environment)
+                    .bind("feature-management", Bindable.mapOf(String.class, Object.class))
+                    .orElse(Map.of());
+        } catch (RuntimeException ex) {
+            log.warn("Could not read feature-management configuration, flags will be evaluated by FeatureManager", ex);
+            definitions = Map.of();
+        }
+        flags = Map.copyOf(FeatureFlagCompiler.compile(definitions, this::delegate));
+        compilations.increment();
+    }
+
+    public boolean isEnabled(String feature) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            boolean enabled = evaluate(feature, TargetingContext.ANONYMOUS);
+            featureFlagUsage.record(meterName(feature), enabled);
+            return enabled;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Boolean> results = (Map<String, Boolean>) request.getAttribute(RESULTS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (results == null) {
+            results = new HashMap<>();
+            request.setAttribute(RESULTS_ATTRIBUTE, results, RequestAttributes.SCOPE_REQUEST);
+        }
+        Boolean result = results.get(feature);
+        if (result != null) {
+            memoized.increment();
+        } else {
+            result = evaluate(feature, targetingContext(request));
+            results.put(feature, result);
+        }
+        featureFlagUsage.record(meterName(feature), result);
+        return result;
+    }
+
+    /**
+     * Evaluates for a given context rather than the current request's, without memoization.
+     */
+    public boolean isEnabled(String feature, TargetingContext context) {
+        boolean enabled = evaluate(feature, context);
+        featureFlagUsage.record(meterName(feature), enabled);
+        return enabled;
+    }
+
+    /**
+     * Flags left to FeatureManager, including unknown ones, are evaluated without a context.
+     */
+    public boolean isContextFree(String feature) {
+        CompiledFeatureFlag flag = flags.get(feature);
+        return flag == null || flag.isContextFree();
+    }
+
+    public Set<String> getFeatureNames() {
+        return flags.keySet();
+    }
+
+    private boolean evaluate(String feature, TargetingContext context) {
+        CompiledFeatureFlag flag = flags.get(feature);
+        if (flag == null) {
+            flag = delegate(feature);
+        }
+        long start = System.nanoTime();
+        boolean enabled = flag.isEnabled(context);
+        timer(meterName(feature)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return enabled;
+    }
+
+    private String meterName(String feature) {
+        return flags.containsKey(feature) ? feature : UNKNOWN_FEATURE;
+    }
+
+    private CompiledFeatureFlag delegate(String feature) {
+        return CompiledFeatureFlag.contextFree(context -> Boolean.TRUE.equals(featureManager.isEnabledAsync(feature).block()));
+    }
+
+    private TargetingContext targetingContext(RequestAttributes request) {
+        if (request instanceof ServletRequestAttributes) {
+            Principal principal = ((ServletRequestAttributes) request).getRequest().getUserPrincipal();
+            if (principal != null) {
+                return new TargetingContext(principal.getName(), List.of());
+            }
+        }
+        return TargetingContext.ANONYMOUS;
+    }
+
+    private Timer timer(String feature) {
+        Timer timer = timers.get(feature);
+        return timer != null ? timer : timers.computeIfAbsent(feature, name -> Timer.builder("feature.flag.evaluation")
+                .description("Time to evaluate a feature flag, memoized checks excluded")
+                .tag("feature", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,22 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Like @FeatureGate, but checked against the compiled flags of FeatureFlagEvaluator, so the result is
+ * shared with every other check of the same flag during the request.
+ * When the feature is disabled the request is redirected to fallback, or answered 404 without one.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FeatureFlagGate {
+
+    String feature();
+
+    String fallback() default "";
+}
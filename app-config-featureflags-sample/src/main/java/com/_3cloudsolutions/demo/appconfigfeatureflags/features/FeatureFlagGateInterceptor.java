@@ -0,0 +1,36 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Routes requests for handlers annotated with @FeatureFlagGate according to FeatureFlagEvaluator.
+ */
+public class FeatureFlagGateInterceptor implements HandlerInterceptor {
+
+    private FeatureFlagEvaluator featureFlagEvaluator;
+
+    public FeatureFlagGateInterceptor(FeatureFlagEvaluator featureFlagEvaluator) {
+        this.featureFlagEvaluator = featureFlagEvaluator;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        FeatureFlagGate gate = ((HandlerMethod) handler).getMethodAnnotation(FeatureFlagGate.class);
+        if (gate == null || featureFlagEvaluator.isEnabled(gate.feature())) {
+            return true;
+        }
+        if (gate.fallback().isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        } else {
+            response.sendRedirect(request.getContextPath() + gate.fallback());
+        }
+        return false;
+    }
+}
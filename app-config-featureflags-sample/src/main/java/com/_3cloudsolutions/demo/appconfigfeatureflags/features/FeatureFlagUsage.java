@@ -0,0 +1,113 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often each feature flag is evaluated and with what outcome, to find flags nothing checks any
+ * more. Evaluations only touch striped LongAdders, so concurrent requests checking the same flag do not
+ * contend. The counts are drained into the feature.flag.evaluations counter every drain interval, which is
+ * also when the per-flag rates are worked out.
+ */
+@Component
+public class FeatureFlagUsage {
+
+    private MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Usage> usage = new ConcurrentHashMap<>();
+    private volatile long lastDrain = System.nanoTime();
+
+    public FeatureFlagUsage(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String feature, boolean enabled) {
+        Usage flag = usage.get(feature);
+        if (flag == null) {
+            flag = usage.computeIfAbsent(feature, name -> new Usage(name, meterRegistry));
+        }
+        (enabled ? flag.enabled : flag.disabled).increment();
+        flag.lastEvaluated.accumulate(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedRateString = "${feature-flags.usage.drain-interval:10000}")
+    public void drain() {
+        long now = System.nanoTime();
+        double seconds = (now - lastDrain) / 1e9;
+        lastDrain = now;
+        usage.values().forEach(flag -> flag.drain(seconds));
+    }
+
+    /**
+     * @param features flags that exist, so that flags never evaluated are listed too
+     */
+    public Map<String, FlagUsage> report(Iterable<String> features) {
+        Map<String, FlagUsage> report = new TreeMap<>();
+        for (String feature : features) {
+            report.put(feature, new FlagUsage(0, 0, 0, null));
+        }
+        usage.forEach((name, flag) -> report.put(name, flag.report()));
+        return report;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FlagUsage {
+        private long enabled;
+        private long disabled;
+        private double evaluationsPerSecond;
+        private String lastEvaluated;
+    }
+
+    private static class Usage {
+        private final LongAdder enabled = new LongAdder();
+        private final LongAdder disabled = new LongAdder();
+        private final LongAccumulator lastEvaluated = new LongAccumulator(Math::max, 0);
+        private final Counter enabledCounter;
+        private final Counter disabledCounter;
+        // Totals up to the last drain, and the rate seen over it; only written by the drain
+        private volatile long enabledTotal;
+        private volatile long disabledTotal;
+        private volatile double rate;
+
+        Usage(String feature, MeterRegistry meterRegistry) {
+            this.enabledCounter = counter(feature, "enabled", meterRegistry);
+            this.disabledCounter = counter(feature, "disabled", meterRegistry);
+        }
+
+        private static Counter counter(String feature, String outcome, MeterRegistry meterRegistry) {
+            return Counter.builder("feature.flag.evaluations")
+                    .description("Feature flag evaluations, drained periodically from in-memory counters")
+                    .tag("feature", feature)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        void drain(double seconds) {
+            long enabledDelta = enabled.sumThenReset();
+            long disabledDelta = disabled.sumThenReset();
+            enabledCounter.increment(enabledDelta);
+            disabledCounter.increment(disabledDelta);
+            enabledTotal += enabledDelta;
+            disabledTotal += disabledDelta;
+            rate = seconds > 0 ? (enabledDelta + disabledDelta) / seconds : 0;
+        }
+
+        FlagUsage report() {
+            long last = lastEvaluated.get();
+            return new FlagUsage(enabledTotal + enabled.sum(), disabledTotal + disabled.sum(), rate,
+                    last == 0 ? null : Instant.ofEpochMilli(last).toString());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import com._3cloudsolutions.demo.appconfigfeatureflags.features.FeatureFlagUsage.FlagUsage;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/flagusage lists every feature flag with its evaluation counts, recent rate and when it was
+ * last evaluated. Flags with no evaluations are candidates for removal.
+ */
+@Component
+@Endpoint(id = "flagusage")
+public class FeatureFlagUsageEndpoint {
+
+    private FeatureFlagEvaluator featureFlagEvaluator;
+    private FeatureFlagUsage featureFlagUsage;
+
+    public FeatureFlagUsageEndpoint(FeatureFlagEvaluator featureFlagEvaluator, FeatureFlagUsage featureFlagUsage) {
+        this.featureFlagEvaluator = featureFlagEvaluator;
+        this.featureFlagUsage = featureFlagUsage;
+    }
+
+    @ReadOperation
+    public Map<String, FlagUsage> usage() {
+        return featureFlagUsage.report(featureFlagEvaluator.getFeatureNames());
+    }
+}
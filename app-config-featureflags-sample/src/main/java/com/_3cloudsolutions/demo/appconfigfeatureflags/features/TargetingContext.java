@@ -0,0 +1,19 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Who a targeting filter is evaluated for.
+ */
+@Getter
+@AllArgsConstructor
+public class TargetingContext {
+
+    public static final TargetingContext ANONYMOUS = new TargetingContext("", List.of());
+
+    private String userId;
+    private List<String> groups;
+}
@@ -0,0 +1,51 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigSnapshotFileTest {
+
+    private static final Map<String, String> VALUES = Map.of("db.pwd", "s3cr3t-from-vault", "content.value1", "hello");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void encryptsEveryValue() throws Exception {
+        ConfigSnapshotFile file = new ConfigSnapshotFile(properties(Base64.getEncoder().encodeToString(new byte[32])));
+
+        assertThat(file.write(VALUES)).isEqualTo(2);
+
+        String written = new String(Files.readAllBytes(file.getFile()), StandardCharsets.ISO_8859_1);
+        assertThat(written).doesNotContain("s3cr3t-from-vault").doesNotContain("hello");
+        ConfigSnapshotPropertySource snapshot = file.read("snapshot");
+        assertThat(snapshot.getProperty("db.pwd")).isEqualTo("s3cr3t-from-vault");
+        assertThat(snapshot.getProperty("content.value1")).isEqualTo("hello");
+    }
+
+    @Test
+    void keepsNoSnapshotWithoutAKey() throws Exception {
+        Path existing = Files.writeString(directory.resolve("config-snapshot.bin"), "db.pwd=s3cr3t-from-vault");
+        ConfigSnapshotFile file = new ConfigSnapshotFile(properties(null));
+
+        assertThat(file.write(VALUES)).isZero();
+
+        assertThat(existing).doesNotExist();
+        assertThat(file.read("snapshot")).isNull();
+    }
+
+    private ConfigSnapshotProperties properties(String key) {
+        ConfigSnapshotProperties properties = new ConfigSnapshotProperties();
+        properties.setFile(directory.resolve("config-snapshot.bin").toString());
+        properties.setKey(key);
+        return properties;
+    }
+}
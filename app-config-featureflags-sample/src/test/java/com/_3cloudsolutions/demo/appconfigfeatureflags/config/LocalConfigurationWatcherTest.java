@@ -0,0 +1,132 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.config;
+
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocalConfigurationWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private AnnotationConfigApplicationContext applicationContext;
+    private ConfigurationPropertiesRebinder rebinder;
+    private final List<EnvironmentChangeEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = directory.resolve("local-configuration.yml");
+        Files.writeString(file, "content:\n  value1: one\n  value2: two\nother:\n  name: unchanged\n");
+
+        applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of(LocalConfigurationPropertySourceLocator.FILE_PROPERTY, file.toString())));
+        applicationContext.getEnvironment().getPropertySources().addLast(new MapPropertySource(
+                "bootstrapProperties-" + LocalConfigurationPropertySourceLocator.NAME,
+                LocalConfigurationPropertySourceLocator.load(file)));
+        applicationContext.register(Beans.class);
+        applicationContext.addApplicationListener((ApplicationListener<EnvironmentChangeEvent>) events::add);
+        applicationContext.refresh();
+        rebinder = mock(ConfigurationPropertiesRebinder.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationContext.close();
+    }
+
+    @Test
+    void appliesOnlyTheChangedKeys() throws Exception {
+        Files.writeString(file, "content:\n  value1: uno\nother:\n  name: unchanged\n");
+
+        assertThat(watcher().refresh()).containsExactlyInAnyOrder("content.value1", "content.value2");
+
+        assertThat(events).singleElement()
+                .satisfies(event -> assertThat(event.getKeys())
+                        .containsExactlyInAnyOrder("content.value1", "content.value2"));
+        verify(rebinder).rebind("content");
+        verify(rebinder, never()).rebind("other");
+        assertThat(applicationContext.getEnvironment().getProperty("content.value1")).isEqualTo("uno");
+        assertThat(applicationContext.getEnvironment().containsProperty("content.value2")).isFalse();
+    }
+
+    @Test
+    void publishesTheChangeWhenABeanFailsToRebind() throws Exception {
+        when(rebinder.rebind("content")).thenThrow(new IllegalStateException("Cannot rebind to content"));
+        Files.writeString(file, "content:\n  value1: uno\n  value2: two\nother:\n  name: changed\n");
+
+        assertThat(watcher().refresh()).containsExactlyInAnyOrder("content.value1", "other.name");
+
+        assertThat(events).singleElement()
+                .satisfies(event -> assertThat(event.getKeys()).containsExactlyInAnyOrder("content.value1", "other.name"));
+        verify(rebinder).rebind("other");
+        assertThat(applicationContext.getEnvironment().getProperty("other.name")).isEqualTo("changed");
+    }
+
+    @Test
+    void leavesEverythingAloneWhenNothingChanged() throws Exception {
+        Files.writeString(file, "other:\n  name: unchanged\ncontent:\n  value2: two\n  value1: one\n");
+
+        assertThat(watcher().refresh()).isEmpty();
+
+        assertThat(events).isEmpty();
+        verify(rebinder, never()).rebind(anyString());
+    }
+
+    private LocalConfigurationWatcher watcher() {
+        return new LocalConfigurationWatcher(applicationContext, rebinder);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties
+    static class Beans {
+
+        @Bean
+        @ConfigurationProperties("content")
+        ContentProperties content() {
+            return new ContentProperties();
+        }
+
+        @Bean
+        @ConfigurationProperties("other")
+        OtherProperties other() {
+            return new OtherProperties();
+        }
+    }
+
+    @Data
+    static class ContentProperties {
+        private String value1;
+        private String value2;
+    }
+
+    @Data
+    static class OtherProperties {
+        private String name;
+    }
+}
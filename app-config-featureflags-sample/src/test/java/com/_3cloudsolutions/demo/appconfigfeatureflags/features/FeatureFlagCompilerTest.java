@@ -0,0 +1,159 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureFlagCompilerTest {
+
+    private static final CompiledFeatureFlag FALLBACK = CompiledFeatureFlag.contextFree(context -> true);
+    private static final Function<String, CompiledFeatureFlag> fallback = name -> FALLBACK;
+
+    @Test
+    void compilesBothConfigurationShapes() {
+        Map<String, CompiledFeatureFlag> flags = FeatureFlagCompiler.compile(Map.of(
+                "Local", true,
+                "LocalText", "false",
+                "featureManagement", Map.of("Nested", Map.of("enabled-for", List.of(Map.of("name", "AlwaysOn")))),
+                "onOff", Map.of("Switched", "true")), fallback);
+
+        assertThat(flags).containsOnlyKeys("Local", "LocalText", "Nested", "Switched");
+        assertThat(flags.get("Local")).isSameAs(CompiledFeatureFlag.ON);
+        assertThat(flags.get("LocalText")).isSameAs(CompiledFeatureFlag.OFF);
+        assertThat(flags.get("Nested")).isSameAs(CompiledFeatureFlag.ON);
+        assertThat(flags.get("Switched")).isSameAs(CompiledFeatureFlag.ON);
+    }
+
+    @Test
+    void readsEveryEnabledForShape() {
+        Map<String, Object> alwaysOn = Map.of("name", "Microsoft.AlwaysOn");
+
+        assertThat(compile(Map.of("enabled-for", List.of(alwaysOn)))).isSameAs(CompiledFeatureFlag.ON);
+        assertThat(compile(Map.of("enabledFor", Map.of("[0]", alwaysOn)))).isSameAs(CompiledFeatureFlag.ON);
+        assertThat(compile(Map.of("EnabledFor", Map.of("0", alwaysOn)))).isSameAs(CompiledFeatureFlag.ON);
+        assertThat(compile(Map.of("enabled-for", List.of()))).isSameAs(CompiledFeatureFlag.OFF);
+        assertThat(compile(Map.of("description", "no filters"))).isSameAs(CompiledFeatureFlag.OFF);
+    }
+
+    @Test
+    void leavesWhatItCannotCompileToTheFallback() {
+        assertThat(compile(Map.of("enabled-for", List.of(Map.of("name", "Custom.Filter"))))).isSameAs(FALLBACK);
+        assertThat(compile(Map.of("enabled-for", List.of(percentage("not a number"))))).isSameAs(FALLBACK);
+        assertThat(compile(Map.of("enabled-for", List.of(Map.of("name", "TimeWindow",
+                "parameters", Map.of("Start", "yesterday"))))))
+                .isSameAs(FALLBACK);
+        // One filter the compiler does not know sends the whole flag to the fallback
+        assertThat(compile(Map.of("enabled-for", List.of(percentage("50"), Map.of("name", "Custom.Filter")))))
+                .isSameAs(FALLBACK);
+    }
+
+    @Test
+    void drawsPercentageAfreshOnEveryEvaluation() {
+        assertThat(compile(Map.of("enabled-for", List.of(percentage("0"))))).isSameAs(CompiledFeatureFlag.OFF);
+        assertThat(compile(Map.of("enabled-for", List.of(percentage("100"))))).isSameAs(CompiledFeatureFlag.ON);
+
+        CompiledFeatureFlag half = compile(Map.of("enabled-for", List.of(percentage("50"))));
+        int enabled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (half.isEnabled(TargetingContext.ANONYMOUS)) {
+                enabled++;
+            }
+        }
+        assertThat(half.isContextFree()).isFalse();
+        assertThat(enabled).isBetween(4_500, 5_500);
+    }
+
+    @Test
+    void parsesTimeWindowsInRfc1123AndIsoFormat() {
+        CompiledFeatureFlag past = timeWindow("Wed, 01 May 2019 22:59:30 GMT", "Thu, 02 May 2019 22:59:30 GMT");
+        CompiledFeatureFlag open = timeWindow("2019-05-01T00:00:00Z", null);
+        CompiledFeatureFlag future = timeWindow("2999-01-01T00:00:00+01:00", null);
+        CompiledFeatureFlag untilFuture = timeWindow(null, "Tue, 01 Jan 2999 00:00:00 GMT");
+
+        assertThat(past.isEnabled(TargetingContext.ANONYMOUS)).isFalse();
+        assertThat(open.isEnabled(TargetingContext.ANONYMOUS)).isTrue();
+        assertThat(future.isEnabled(TargetingContext.ANONYMOUS)).isFalse();
+        assertThat(untilFuture.isEnabled(TargetingContext.ANONYMOUS)).isTrue();
+        assertThat(open.isContextFree()).isTrue();
+        assertThat(timeWindow(null, null)).isSameAs(CompiledFeatureFlag.OFF);
+    }
+
+    /**
+     * Users hash to a fixed point of the rollout: for Beta, alice at 88.4%, bob at 53.1% and carol at 31.5%;
+     * in the beta-testers group, alice at 6.3%, bob at 37.8% and carol at 17.6%.
+     */
+    @Test
+    void rollsTargetingOutByAStableHashOfUserAndFeature() {
+        CompiledFeatureFlag fifty = targeting(Map.of("DefaultRolloutPercentage", 50));
+        CompiledFeatureFlag fiftyFour = targeting(Map.of("DefaultRolloutPercentage", 54));
+
+        assertThat(fifty.isEnabled(user("carol"))).isTrue();
+        assertThat(fifty.isEnabled(user("bob"))).isFalse();
+        assertThat(fifty.isEnabled(user("alice"))).isFalse();
+        assertThat(fiftyFour.isEnabled(user("bob"))).isTrue();
+        assertThat(fifty.isContextFree()).isFalse();
+    }
+
+    @Test
+    void appliesGroupRolloutsBeforeTheDefault() {
+        CompiledFeatureFlag groupOnly = targeting(Map.of(
+                "Users", List.of("alice"),
+                "Groups", List.of(Map.of("Name", "beta-testers", "RolloutPercentage", 20))));
+        CompiledFeatureFlag groupAndDefault = targeting(Map.of(
+                "Groups", List.of(Map.of("Name", "beta-testers", "RolloutPercentage", 20)),
+                "DefaultRolloutPercentage", 60));
+
+        assertThat(groupOnly.isEnabled(user("alice"))).isTrue();
+        assertThat(groupOnly.isEnabled(user("carol", "beta-testers"))).isTrue();
+        assertThat(groupOnly.isEnabled(user("bob", "beta-testers"))).isFalse();
+        assertThat(groupOnly.isEnabled(user("carol"))).isFalse();
+        assertThat(groupAndDefault.isEnabled(user("bob", "beta-testers"))).isTrue();
+        assertThat(groupAndDefault.isEnabled(user("alice", "beta-testers"))).isTrue();
+        assertThat(groupAndDefault.isEnabled(user("alice"))).isFalse();
+    }
+
+    @Test
+    void givesTheSameUserTheSameAnswer() {
+        CompiledFeatureFlag flag = targeting(Map.of("DefaultRolloutPercentage", 50));
+        Set<Boolean> answers = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            answers.add(flag.isEnabled(user("carol")));
+        }
+        assertThat(answers).containsExactly(true);
+    }
+
+    private static CompiledFeatureFlag compile(Map<String, Object> definition) {
+        return FeatureFlagCompiler.compileFlag("Beta", definition, fallback);
+    }
+
+    private static Map<String, Object> percentage(String value) {
+        return Map.of("name", "Microsoft.Percentage", "parameters", Map.of("Value", value));
+    }
+
+    private static CompiledFeatureFlag timeWindow(String start, String end) {
+        Map<String, Object> parameters = new HashMap<>();
+        if (start != null) {
+            parameters.put("Start", start);
+        }
+        if (end != null) {
+            parameters.put("End", end);
+        }
+        return compile(Map.of("enabled-for", List.of(Map.of("name", "Microsoft.TimeWindow", "parameters", parameters))));
+    }
+
+    private static CompiledFeatureFlag targeting(Map<String, Object> audience) {
+        return compile(Map.of("enabled-for", List.of(Map.of("name", "Microsoft.Targeting",
+                "parameters", Map.of("Audience", audience)))));
+    }
+
+    private static TargetingContext user(String userId, String... groups) {
+        return new TargetingContext(userId, List.of(groups));
+    }
+}
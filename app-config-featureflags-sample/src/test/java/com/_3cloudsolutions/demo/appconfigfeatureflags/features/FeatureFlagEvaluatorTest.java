@@ -0,0 +1,78 @@
+package com._3cloudsolutions.demo.appconfigfeatureflags.features;
+
+import com.azure.spring.cloud.feature.manager.FeatureManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeatureFlagEvaluatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeatureFlagUsage featureFlagUsage;
+    private FeatureFlagEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("feature-management.Half.enabled-for[0].name", "Microsoft.Percentage")
+                .withProperty("feature-management.Half.enabled-for[0].parameters.Value", "50");
+        FeatureManager featureManager = mock(FeatureManager.class);
+        when(featureManager.isEnabledAsync(anyString())).thenReturn(Mono.just(false));
+        meterRegistry = new SimpleMeterRegistry();
+        featureFlagUsage = new FeatureFlagUsage(meterRegistry);
+        evaluator = new FeatureFlagEvaluator(environment, featureManager, meterRegistry, featureFlagUsage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void answersEachFlagOncePerRequest() {
+        Set<Boolean> answers = new HashSet<>();
+        for (int request = 0; request < 20; request++) {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            Set<Boolean> requestAnswers = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                requestAnswers.add(evaluator.isEnabled("Half"));
+            }
+            assertThat(requestAnswers).hasSize(1);
+            answers.addAll(requestAnswers);
+        }
+
+        // A fresh draw per request, so twenty requests all agreeing would be a one in half a million chance
+        assertThat(answers).containsExactlyInAnyOrder(true, false);
+        assertThat(meterRegistry.get("feature.flag.memoized").counter().count()).isEqualTo(20 * 9);
+        assertThat(meterRegistry.get("feature.flag.evaluation").tag("feature", "Half").timer().count())
+                .isEqualTo(20);
+    }
+
+    @Test
+    void countsUndefinedFlagsUnderOneName() {
+        for (int i = 0; i < 100; i++) {
+            evaluator.isEnabled("Undefined" + i);
+            evaluator.isEnabled("Undefined" + i, TargetingContext.ANONYMOUS);
+        }
+
+        assertThat(meterRegistry.find("feature.flag.evaluation").timers()).singleElement()
+                .satisfies(timer -> assertThat(timer.getId().getTag("feature")).isEqualTo(FeatureFlagEvaluator.UNKNOWN_FEATURE))
+                .satisfies(timer -> assertThat(timer.count()).isEqualTo(200));
+        assertThat(featureFlagUsage.report(evaluator.getFeatureNames()))
+                .containsOnlyKeys("Half", FeatureFlagEvaluator.UNKNOWN_FEATURE);
+    }
+}
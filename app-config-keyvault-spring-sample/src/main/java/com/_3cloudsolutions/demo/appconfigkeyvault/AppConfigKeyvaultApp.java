@@ -1,14 +1,11 @@
 package com._3cloudsolutions.demo.appconfigkeyvault;
 
-import com._3cloudsolutions.demo.appconfigkeyvault.config.AdditionalValuesConfig;
-import com._3cloudsolutions.demo.appconfigkeyvault.config.MoreValuesConfig;
-import com._3cloudsolutions.demo.appconfigkeyvault.config.ValuesConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties({ValuesConfig.class, MoreValuesConfig.class, AdditionalValuesConfig.class})
+@EnableScheduling
 public class AppConfigKeyvaultApp {
 
     public static void main(String[] args) {
@@ -1,57 +1,118 @@
 package com._3cloudsolutions.demo.appconfigkeyvault.config;
 
 import com.azure.spring.cloud.feature.manager.FeatureManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Utility class for fetching Feature Flag settings from an Azure App Configuration instance
  * The connection to App Configuration will need to be managed by the application itself
+ *
+ * Flags are served from an immutable snapshot. Each time App Configuration refreshes, every flag is
+ * re-evaluated in parallel and the new snapshot replaces the old one in a single atomic step, so readers
+ * never block and never see a half-updated set of flags.
  */
 @Configuration
 public class AppFeatureFlagsConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(AppFeatureFlagsConfig.class);
+
     private FeatureManager featureManager;
-    private HashMap<String, Boolean> allFeatureFlags;
-    private Set<String> allFeatureFlagNames;
+    private FeatureFlagUsage featureFlagUsage;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(Map.of(), 0));
+    private final AtomicLong generations = new AtomicLong();
 
-    public AppFeatureFlagsConfig(FeatureManager featureManager) {
+    public AppFeatureFlagsConfig(FeatureManager featureManager, FeatureFlagUsage featureFlagUsage) {
         this.featureManager = featureManager;
-        setMap();
+        this.featureFlagUsage = featureFlagUsage;
+        rebuild().block();
     }
 
     /**
      * Fetch all App Configuration Feature Flags for an endpoint
      * @return Collection of all available features with their enabled status
      */
-    public HashMap<String, Boolean> getAllFeatureFlags() {
-        return this.allFeatureFlags;
+    public Map<String, Boolean> getAllFeatureFlags() {
+        return snapshot.get().flags;
     }
 
     public Set<String> getAllFeatureFlagNames() {
-        return this.allFeatureFlagNames;
+        return snapshot.get().flags.keySet();
     }
 
+    /**
+     * The way application code should check a flag, since it is what /actuator/flagusage counts. Nothing in
+     * this sample checks one yet. A name that is not in the current snapshot is off and is counted as
+     * unknown, so callers cannot add a meter per arbitrary name.
+     */
     public boolean isEnabled(String featureFlag) {
-        if (!allFeatureFlags.containsKey(featureFlag)) {
+        Boolean enabled = snapshot.get().flags.get(featureFlag);
+        if (enabled == null) {
+            featureFlagUsage.record(FeatureFlagUsage.UNKNOWN, false);
             return false;
         }
-        return this.allFeatureFlags.get(featureFlag);
+        featureFlagUsage.record(featureFlag, enabled);
+        return enabled;
     }
 
+    /**
+     * Overrides a flag until the next App Configuration refresh.
+     */
     public void updateFeatureFlag(String featureFlag, boolean enabledFlag) {
-        this.allFeatureFlags.put(featureFlag, enabledFlag);
+        snapshot.updateAndGet(current -> {
+            Map<String, Boolean> flags = new HashMap<>(current.flags);
+            flags.put(featureFlag, enabledFlag);
+            return new Snapshot(Map.copyOf(flags), current.generation);
+        });
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        rebuild().subscribe(null, ex -> log.warn("Feature flag refresh failed, keeping the previous flags", ex));
+    }
+
+    /**
+     * A full refresh, published by the application context, is followed by RefreshScopeRefreshedEvent.
+     * Targeted changes, such as edits to the local configuration file, only publish the changed keys.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (!(event.getSource() instanceof ApplicationContext)
+                && event.getKeys().stream().anyMatch(key -> key.startsWith("feature-management"))) {
+            onRefresh();
+        }
     }
 
-    private void setMap(){
-        this.allFeatureFlagNames = new HashSet<>();
-        this.allFeatureFlags = new HashMap<>();
-        Set<String> rawFeatureFlagNames = featureManager.getAllFeatureNames();
-        rawFeatureFlagNames.stream().forEach(flagName -> this.allFeatureFlagNames.add(parseFeatureName(flagName)));
-        rawFeatureFlagNames.forEach(flag -> this.allFeatureFlags.put(parseFeatureName(flag), featureManager.isEnabledAsync(flag).block()));
+    /**
+     * Evaluates every flag concurrently and publishes the result, unless a rebuild that started later
+     * has already published.
+     */
+    private Mono<Snapshot> rebuild() {
+        return Mono.defer(() -> {
+            long generation = generations.incrementAndGet();
+            return Flux.fromIterable(featureManager.getAllFeatureNames())
+                    .flatMap(flag -> Mono.defer(() -> featureManager.isEnabledAsync(flag))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .map(enabled -> Map.entry(parseFeatureName(flag), enabled)))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .map(flags -> snapshot.updateAndGet(current -> current.generation > generation
+                            ? current
+                            : new Snapshot(Map.copyOf(flags), generation)));
+        });
     }
 
     private String parseFeatureName(String name) {
@@ -62,4 +123,14 @@ public class AppFeatureFlagsConfig {
     private String getFeatureFlagManagerName(String featureFlag) {
         return "featureManagement." + featureFlag;
     }
+
+    private static final class Snapshot {
+        private final Map<String, Boolean> flags;
+        private final long generation;
+
+        Snapshot(Map<String, Boolean> flags, long generation) {
+            this.flags = flags;
+            this.generation = generation;
+        }
+    }
 }
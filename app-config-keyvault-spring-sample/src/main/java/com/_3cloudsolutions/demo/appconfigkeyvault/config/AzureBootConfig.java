@@ -1,13 +1,57 @@
 package com._3cloudsolutions.demo.appconfigkeyvault.config;
 
+import com.azure.spring.cloud.config.KeyVaultSecretProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Collection;
 
 @Configuration
 public class AzureBootConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(AzureBootConfig.class);
+
     @Bean
     public AzureCredentials azureCredentials() {
         return new AzureCredentials();
     }
+
+    /**
+     * Created in the bootstrap context, where App Configuration picks it up to resolve Key Vault references.
+     * The application context finds it there rather than creating its own. Each refresh creates it again,
+     * over the secrets already cached, and stops refreshing secrets whose references have gone. Nothing is
+     * prefetched while startup is served from the configuration snapshot, as App Configuration is not read
+     * until later.
+     */
+    @Bean
+    @ConditionalOnMissingBean(KeyVaultSecretProvider.class)
+    public KeyVaultSecretCache keyVaultSecretCache(Environment environment, AzureCredentials azureCredentials,
+                                                   ObjectProvider<ConfigSnapshotPropertySourceLocator> snapshot) {
+        KeyVaultProperties properties = Binder.get(environment)
+                .bind("key-vault", KeyVaultProperties.class)
+                .orElseGet(KeyVaultProperties::new);
+        SecretFetcher fetcher = properties.getStub().isEnabled()
+                ? new StubSecretFetcher(properties.getStub().getSecrets(), properties.getStub().getLatency())
+                : new KeyVaultSecretFetcher(azureCredentials.getCredential());
+        KeyVaultSecretCache cache = new KeyVaultSecretCache(fetcher, properties);
+
+        ConfigSnapshotPropertySourceLocator snapshotLocator = snapshot.getIfAvailable();
+        boolean servingSnapshot = snapshotLocator != null && snapshotLocator.isServingSnapshot();
+        if (environment.getProperty("spring.cloud.azure.appconfiguration.enabled", Boolean.class, true) && !servingSnapshot) {
+            try {
+                Collection<String> references = KeyVaultReferences.list(environment, azureCredentials.getCredential());
+                cache.retain(references);
+                cache.prefetch(references);
+            } catch (RuntimeException ex) {
+                log.warn("Could not list Key Vault references, secrets will be fetched as App Configuration reads them", ex);
+            }
+        }
+        return cache;
+    }
 }
@@ -4,7 +4,15 @@ import com.azure.core.credential.TokenCredential;
 import com.azure.identity.DefaultAzureCredentialBuilder;
 import com.azure.spring.cloud.config.AppConfigurationCredentialProvider;
 import com.azure.spring.cloud.config.KeyVaultCredentialProvider;
+import io.micrometer.core.instrument.Metrics;
 
+import java.time.Duration;
+
+/**
+ * Every App Configuration store and Key Vault gets the same credential. The credential chain is
+ * resolved once, and tokens are shared and renewed in the background, instead of each client probing
+ * the chain and fetching its own tokens at startup and on every refresh.
+ */
 public class AzureCredentials implements AppConfigurationCredentialProvider, KeyVaultCredentialProvider {
 
      @Override
@@ -18,6 +26,19 @@ public class AzureCredentials implements AppConfigurationCredentialProvider, Key
     }
 
     public TokenCredential getCredential()  {
-    	return new DefaultAzureCredentialBuilder().build();
+    	return SharedCredential.INSTANCE;
+    }
+
+    /**
+     * Held statically because AzureCredentials is created in both the bootstrap and the application
+     * context. Metrics go to the global registry, which Spring Boot's registries are added to, since the
+     * bootstrap context has no MeterRegistry of its own.
+     */
+    private static final class SharedCredential {
+        private static final TokenCredential INSTANCE = new CachingTokenCredential(
+                new DefaultAzureCredentialBuilder().build(),
+                Duration.ofMinutes(5),
+                Duration.ofSeconds(30),
+                Metrics.globalRegistry);
     }
-}
\ No newline at end of file
+}
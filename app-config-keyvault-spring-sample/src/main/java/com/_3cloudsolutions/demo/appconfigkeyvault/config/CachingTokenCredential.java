@@ -0,0 +1,162 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Wraps a TokenCredential so that every client asking for the same scopes shares one access token.
+ * Tokens are cached until shortly before they expire and renewed in the background ahead of that, so
+ * callers only wait for a token the first time a scope is used. Requests that arrive while a token is
+ * being fetched wait for that fetch instead of starting their own.
+ * Fetch latency is published as azure.credential.token.acquisition and cache use as azure.credential.token.requests.
+ */
+public class CachingTokenCredential implements TokenCredential {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingTokenCredential.class);
+    // A cached token closer than this to expiry could expire before the request using it is sent
+    private static final Duration MIN_VALIDITY = Duration.ofSeconds(30);
+
+    private final TokenCredential delegate;
+    private final Duration refreshMargin;
+    private final Duration retryDelay;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Counter cached;
+    private final Counter joined;
+    private final Counter fetched;
+
+    /**
+     * @param refreshMargin how long before expiry a token is renewed
+     * @param retryDelay    how soon a failed background renewal is tried again
+     */
+    public CachingTokenCredential(TokenCredential delegate, Duration refreshMargin, Duration retryDelay,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.refreshMargin = refreshMargin;
+        this.retryDelay = retryDelay;
+        this.meterRegistry = meterRegistry;
+        this.cached = requests("cached");
+        this.joined = requests("joined");
+        this.fetched = requests("fetched");
+    }
+
+    @Override
+    public Mono<AccessToken> getToken(TokenRequestContext request) {
+        CachedToken entry = tokens.computeIfAbsent(key(request), key -> new CachedToken(request));
+        AccessToken token = entry.token.get();
+        if (token != null && token.getExpiresAt().isAfter(OffsetDateTime.now().plus(MIN_VALIDITY))) {
+            cached.increment();
+            return Mono.just(token);
+        }
+        return entry.fetch(false);
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("azure.credential.token.requests")
+                .description("Token requests by how they were answered: from cache, by joining a fetch, or by fetching")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scopes, claims and tenant all change the token that comes back.
+     */
+    private static String key(TokenRequestContext request) {
+        return String.join(" ", request.getScopes()) + "|" + request.getClaims() + "|" + request.getTenantId();
+    }
+
+    private final class CachedToken {
+
+        private final TokenRequestContext request;
+        private final AtomicReference<AccessToken> token = new AtomicReference<>();
+        private final AtomicReference<Mono<AccessToken>> inFlight = new AtomicReference<>();
+        private final Timer acquisition;
+        private final Timer failedAcquisition;
+
+        CachedToken(TokenRequestContext request) {
+            this.request = request;
+            String scopes = String.join(" ", request.getScopes());
+            this.acquisition = acquisitionTimer(scopes, "success");
+            this.failedAcquisition = acquisitionTimer(scopes, "error");
+        }
+
+        private Timer acquisitionTimer(String scopes, String outcome) {
+            return Timer.builder("azure.credential.token.acquisition")
+                    .description("Time to fetch an access token from the credential chain")
+                    .tag("scopes", scopes)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Joins the fetch already under way, or starts one.
+         */
+        Mono<AccessToken> fetch(boolean background) {
+            Mono<AccessToken> current = inFlight.get();
+            if (current != null) {
+                if (!background) {
+                    joined.increment();
+                }
+                return current;
+            }
+            Mono<AccessToken> fetch = Mono.defer(() -> {
+                        long start = System.nanoTime();
+                        return delegate.getToken(request)
+                                .doOnSuccess(token -> acquisition.record(Duration.ofNanos(System.nanoTime() - start)))
+                                .doOnError(ex -> failedAcquisition.record(Duration.ofNanos(System.nanoTime() - start)));
+                    })
+                    .doOnNext(this::store)
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache();
+            if (!inFlight.compareAndSet(null, fetch)) {
+                return fetch(background);
+            }
+            if (!background) {
+                fetched.increment();
+            }
+            return fetch;
+        }
+
+        /**
+         * Renewal is due refreshMargin before expiry, or halfway through the lifetime of tokens too short-lived
+         * for that. Tokens that are about to expire anyway are left to the next request.
+         */
+        private void store(AccessToken fresh) {
+            token.set(fresh);
+            Duration lifetime = Duration.between(OffsetDateTime.now(), fresh.getExpiresAt());
+            if (lifetime.compareTo(MIN_VALIDITY) <= 0) {
+                return;
+            }
+            Duration untilRefresh = lifetime.minus(refreshMargin);
+            schedule(untilRefresh.compareTo(lifetime.dividedBy(2)) < 0 ? lifetime.dividedBy(2) : untilRefresh);
+        }
+
+        private void schedule(Duration delay) {
+            Mono.delay(delay)
+                    .then(Mono.defer(() -> fetch(true)))
+                    .subscribe(null, ex -> {
+                        AccessToken current = token.get();
+                        if (current != null && current.getExpiresAt().isAfter(OffsetDateTime.now().plus(retryDelay))) {
+                            log.warn("Could not renew token for {}, retrying in {}", request.getScopes(), retryDelay, ex);
+                            schedule(retryDelay);
+                        } else {
+                            log.warn("Could not renew token for {}, the next request will fetch one", request.getScopes(), ex);
+                        }
+                    });
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package com._3cloudsolutions.demo.appconfigkeyvault.config;
 
 import net.minidev.json.JSONObject;
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Configuration;
 
-@Configuration
-@ConfigurationProperties(prefix = "one")
-public class ValuesConfig {
+/**
+ * The values under one configuration prefix, such as one.text-value and one.secret. Every section has the
+ * same fields, so one class is bound once per prefix by ConfigSectionRegistry.
+ */
+public class ConfigSection {
     private String textValue;
     private int integerValue;
     private String secret;
@@ -35,19 +35,12 @@ public class ValuesConfig {
         this.secret = secret;
     }
 
-    public String toJson() {
+    public String toJson(String name) {
         JSONObject json = new JSONObject();
+        json.put("section", name);
         json.put("textValue", this.textValue);
         json.put("integerValue", this.integerValue);
         json.put("secret", this.secret);
         return json.toJSONString();
     }
-
-    public JSONObject toJsonObject() {
-        JSONObject json = new JSONObject();
-        json.put("textValue", this.textValue);
-        json.put("integerValue", this.integerValue);
-        json.put("secret", this.secret);
-        return json;
-    }
 }
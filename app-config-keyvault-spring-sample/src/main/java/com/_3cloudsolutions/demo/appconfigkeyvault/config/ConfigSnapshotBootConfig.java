@@ -0,0 +1,75 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Bootstrap configuration for the configuration snapshot, registered in META-INF/spring.factories. When a
+ * snapshot is served at startup, the other locators, App Configuration's among them, are skipped until the
+ * store is reconciled by ConfigSnapshotReconciler.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "config-snapshot", name = "enabled", havingValue = "true")
+public class ConfigSnapshotBootConfig {
+
+    @Bean
+    public ConfigSnapshotPropertySourceLocator configSnapshotPropertySourceLocator(Environment environment) {
+        return new ConfigSnapshotPropertySourceLocator(new ConfigSnapshotFile(ConfigSnapshotProperties.bind(environment)));
+    }
+
+    @Bean
+    public static BeanPostProcessor snapshotFirstLocators(ObjectProvider<ConfigSnapshotPropertySourceLocator> snapshot) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PropertySourceLocator
+                        && !(bean instanceof ConfigSnapshotPropertySourceLocator)
+                        && !(bean instanceof LocalConfigurationPropertySourceLocator)) {
+                    return new SnapshotFirstLocator((PropertySourceLocator) bean, snapshot);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class SnapshotFirstLocator implements PropertySourceLocator, Ordered {
+
+        private final PropertySourceLocator delegate;
+        private final ObjectProvider<ConfigSnapshotPropertySourceLocator> snapshot;
+
+        SnapshotFirstLocator(PropertySourceLocator delegate, ObjectProvider<ConfigSnapshotPropertySourceLocator> snapshot) {
+            this.delegate = delegate;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public PropertySource<?> locate(Environment environment) {
+            return snapshot.getObject().isServingSnapshot() ? null : delegate.locate(environment);
+        }
+
+        @Override
+        public Collection<PropertySource<?>> locateCollection(Environment environment) {
+            return snapshot.getObject().isServingSnapshot()
+                    ? Collections.emptyList()
+                    : delegate.locateCollection(environment);
+        }
+
+        @Override
+        public int getOrder() {
+            return delegate instanceof Ordered
+                    ? ((Ordered) delegate).getOrder()
+                    : OrderUtils.getOrder(delegate.getClass(), Ordered.LOWEST_PRECEDENCE);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the last-known-good configuration snapshot. The file is a magic number, an entry count,
+ * the entries as key, flag and value, and a CRC32 of everything before it. Secret values are encrypted with
+ * AES-GCM, with the key name as associated data so an encrypted value cannot be moved to another key. Which
+ * values are secrets is decided by the caller from where they came from, not from their key names.
+ */
+public class ConfigSnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotFile.class);
+    private static final int MAGIC = 0x43534e31;
+    private static final byte PLAIN = 0;
+    private static final byte ENCRYPTED = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path file;
+    private final SecretKey key;
+    private boolean warnedNoKey;
+
+    public ConfigSnapshotFile(ConfigSnapshotProperties properties) {
+        this.file = Paths.get(properties.getFile()).toAbsolutePath();
+        String encoded = properties.getKey();
+        this.key = encoded == null || encoded.isEmpty()
+                ? null
+                : new SecretKeySpec(Base64.getDecoder().decode(encoded), "AES");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the values to a temporary file beside the snapshot and moves it into place, so the snapshot on
+     * disk is always a complete one, old or new.
+     *
+     * @param secret whether the value under a key is a secret, to be encrypted or, without a key, left out
+     * @return the number of values written
+     */
+    public synchronized int write(Map<String, String> values, Predicate<String> secret) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, String> kept = new HashMap<>(values);
+        if (key == null && kept.keySet().removeIf(secret) && !warnedNoKey) {
+            warnedNoKey = true;
+            log.warn("No config-snapshot.key is set, secret values are left out of the snapshot");
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(kept.size());
+        for (Map.Entry<String, String> entry : kept.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            boolean encrypted = secret.test(entry.getKey());
+            byte[] value = encrypted
+                    ? encrypt(name, entry.getValue().getBytes(StandardCharsets.UTF_8))
+                    : entry.getValue().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeByte(encrypted ? ENCRYPTED : PLAIN);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return kept.size();
+    }
+
+    /**
+     * Maps the snapshot into memory and checks it. Only the keys are read up front; values are decoded as
+     * they are asked for.
+     *
+     * @return the snapshot, or null if there is none or it cannot be used
+     */
+    public ConfigSnapshotPropertySource read(String name) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int end = buffer.limit() - Long.BYTES;
+            if (end < 2 * Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getLong(end) != crc(buffer, end)) {
+                log.warn("Ignoring damaged configuration snapshot {}", file);
+                return null;
+            }
+            ByteBuffer entries = buffer.duplicate().position(Integer.BYTES);
+            int count = entries.getInt();
+            Map<String, ConfigSnapshotPropertySource.Entry> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[entries.getInt()];
+                entries.get(key);
+                boolean encrypted = entries.get() == ENCRYPTED;
+                int length = entries.getInt();
+                index.put(new String(key, StandardCharsets.UTF_8),
+                        new ConfigSnapshotPropertySource.Entry(encrypted, entries.position(), length));
+                entries.position(entries.position() + length);
+            }
+            return new ConfigSnapshotPropertySource(name, buffer, index, this);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not read configuration snapshot {}", file, ex);
+            return null;
+        }
+    }
+
+    private static long crc(ByteBuffer buffer, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        return crc.getValue();
+    }
+
+    /**
+     * @return the value, or null if it is encrypted and cannot be decrypted with the configured key
+     */
+    String decode(String name, boolean encrypted, ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        if (!encrypted) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (key == null) {
+            log.warn("No config-snapshot.key is set to decrypt {} from the snapshot", name);
+            return null;
+        }
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(name.getBytes(StandardCharsets.UTF_8));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException ex) {
+            log.warn("Could not decrypt {} from the snapshot, was config-snapshot.key changed?", name);
+            return null;
+        }
+    }
+
+    private byte[] encrypt(byte[] name, byte[] value) throws IOException {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(name);
+            byte[] sealed = cipher.doFinal(value);
+            ByteBuffer result = ByteBuffer.allocate(IV_LENGTH + sealed.length);
+            return result.put(iv).put(sealed).array();
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Could not encrypt a snapshot value", ex);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Settings for the last-known-good configuration snapshot, bound from config-snapshot.
+ */
+public class ConfigSnapshotProperties {
+    private String file = "config-snapshot.bin";
+    // Base64 AES key for values resolved from Key Vault; without one, they are left out of the snapshot
+    private String key;
+    // How soon reconciling with the store is tried again while it cannot be reached
+    private Duration retryDelay = Duration.ofSeconds(30);
+
+    public static ConfigSnapshotProperties bind(Environment environment) {
+        return Binder.get(environment)
+                .bind("config-snapshot", ConfigSnapshotProperties.class)
+                .orElseGet(ConfigSnapshotProperties::new);
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+}
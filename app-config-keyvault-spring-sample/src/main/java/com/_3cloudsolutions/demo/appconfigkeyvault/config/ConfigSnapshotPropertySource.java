@@ -0,0 +1,60 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.springframework.core.env.EnumerablePropertySource;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serves a configuration snapshot straight from the memory-mapped file. A value is decoded, and decrypted if
+ * it is a secret, the first time it is asked for.
+ */
+public class ConfigSnapshotPropertySource extends EnumerablePropertySource<ByteBuffer> {
+
+    private final Map<String, Entry> index;
+    private final ConfigSnapshotFile file;
+    private final String[] names;
+    private final ConcurrentMap<String, String> decoded = new ConcurrentHashMap<>();
+
+    ConfigSnapshotPropertySource(String name, ByteBuffer buffer, Map<String, Entry> index, ConfigSnapshotFile file) {
+        super(name, buffer);
+        this.index = index;
+        this.file = file;
+        this.names = index.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return names.clone();
+    }
+
+    @Override
+    public boolean containsProperty(String name) {
+        return index.containsKey(name);
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        Entry entry = index.get(name);
+        if (entry == null) {
+            return null;
+        }
+        return decoded.computeIfAbsent(name, key -> file.decode(key, entry.encrypted,
+                getSource().duplicate().position(entry.offset).limit(entry.offset + entry.length)));
+    }
+
+    static final class Entry {
+
+        private final boolean encrypted;
+        private final int offset;
+        private final int length;
+
+        Entry(boolean encrypted, int offset, int length) {
+            this.encrypted = encrypted;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the last-known-good configuration snapshot at startup in place of the configuration store, so the
+ * application comes up without waiting on the network, or with the store unreachable. Only the first
+ * bootstrap serves it; later refreshes load from the store.
+ */
+public class ConfigSnapshotPropertySourceLocator implements PropertySourceLocator, Ordered {
+
+    public static final String NAME = "config-snapshot";
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotPropertySourceLocator.class);
+    private static final AtomicBoolean FIRST_BOOTSTRAP = new AtomicBoolean(true);
+
+    private final ConfigSnapshotFile file;
+    private boolean read;
+    private ConfigSnapshotPropertySource snapshot;
+
+    public ConfigSnapshotPropertySourceLocator(ConfigSnapshotFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public PropertySource<?> locate(Environment environment) {
+        ConfigSnapshotPropertySource located = snapshot();
+        if (located != null) {
+            log.info("Serving {} configuration keys from snapshot {}, the store is reconciled after startup",
+                    located.getPropertyNames().length, file.getFile());
+        }
+        return located;
+    }
+
+    /**
+     * Whether startup is served from the snapshot, in which case locators for the store are skipped.
+     */
+    public boolean isServingSnapshot() {
+        return snapshot() != null;
+    }
+
+    private synchronized ConfigSnapshotPropertySource snapshot() {
+        if (!read) {
+            read = true;
+            if (FIRST_BOOTSTRAP.getAndSet(false)) {
+                snapshot = file.read(NAME);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
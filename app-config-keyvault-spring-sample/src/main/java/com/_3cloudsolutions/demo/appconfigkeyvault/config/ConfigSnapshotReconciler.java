@@ -0,0 +1,190 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.spring.cloud.config.KeyVaultSecretProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the configuration snapshot in step with the store. Whenever configuration has been loaded from the
+ * store, at startup or by a refresh, it is saved as the new snapshot. When startup was served from the
+ * snapshot instead, the store is loaded in the background once the application is ready, retrying while it
+ * cannot be reached, and the snapshot is then dropped from the environment.
+ * Values resolved from Key Vault references are the secrets in the snapshot, told apart by the values the
+ * KeyVaultSecretCache has served. Without the cache their origin is unknown, so every value is a secret.
+ */
+@Component
+@ConditionalOnProperty(prefix = "config-snapshot", name = "enabled", havingValue = "true")
+public class ConfigSnapshotReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotReconciler.class);
+    private static final String BOOTSTRAP_PREFIX = "bootstrapProperties-";
+
+    private ConfigurableApplicationContext applicationContext;
+    private ContextRefresher contextRefresher;
+    private final ConfigSnapshotFile file;
+    private final Duration retryDelay;
+    private final KeyVaultSecretCache secrets;
+    private Map<String, String> saved = Map.of();
+
+    public ConfigSnapshotReconciler(ConfigurableApplicationContext applicationContext, ContextRefresher contextRefresher,
+                                    ObjectProvider<KeyVaultSecretProvider> secrets) {
+        this.applicationContext = applicationContext;
+        this.contextRefresher = contextRefresher;
+        ConfigSnapshotProperties properties = ConfigSnapshotProperties.bind(applicationContext.getEnvironment());
+        this.file = new ConfigSnapshotFile(properties);
+        this.retryDelay = properties.getRetryDelay();
+        KeyVaultSecretProvider provider = secrets.getIfAvailable();
+        this.secrets = provider instanceof KeyVaultSecretCache ? (KeyVaultSecretCache) provider : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (snapshotSource() == null) {
+            save();
+            return;
+        }
+        Thread reconciler = new Thread(this::reconcile, "config-snapshot-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        save();
+    }
+
+    private void reconcile() {
+        long start = System.nanoTime();
+        try {
+            while (!loadFromStore()) {
+                log.warn("Could not load configuration from the store, serving the snapshot and retrying in {}",
+                        retryDelay);
+                Thread.sleep(retryDelay.toMillis());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Drop the snapshot so that keys deleted from the store go too
+        ConfigurableEnvironment environment = applicationContext.getEnvironment();
+        PropertySource<?> snapshot = snapshotSource();
+        Map<String, Object> served = new HashMap<>();
+        for (String key : ((EnumerablePropertySource<?>) snapshot).getPropertyNames()) {
+            served.put(key, environment.getProperty(key));
+        }
+        environment.getPropertySources().remove(snapshot.getName());
+        Set<String> keys = new HashSet<>();
+        served.forEach((key, value) -> {
+            if (!Objects.equals(value, environment.getProperty(key))) {
+                keys.add(key);
+            }
+        });
+        if (!keys.isEmpty()) {
+            applicationContext.publishEvent(new EnvironmentChangeEvent(applicationContext, keys));
+        }
+        save();
+        log.info("Reconciled configuration with the store in {} ms, {} keys were only in the snapshot",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), keys.size());
+    }
+
+    /**
+     * Refreshes from the store. With fail-fast off, App Configuration logs a failure rather than throwing, so
+     * success is judged by whether anything was loaded.
+     */
+    private boolean loadFromStore() {
+        try {
+            contextRefresher.refresh();
+        } catch (RuntimeException ex) {
+            log.debug("Refresh from the store failed", ex);
+            return false;
+        }
+        return !storeValues().isEmpty();
+    }
+
+    /**
+     * Saves what was loaded from the store, unless nothing was or it has not changed since the last save.
+     */
+    private synchronized void save() {
+        Map<String, String> values = storeValues();
+        if (values.isEmpty() || values.equals(saved)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Set<String> secretValues = secrets != null ? secrets.servedValues() : null;
+            int written = file.write(values, key -> secretValues == null || secretValues.contains(values.get(key)));
+            saved = values;
+            log.info("Saved {} configuration keys to snapshot {} in {} ms", written, file.getFile(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not save configuration snapshot {}", file.getFile(), ex);
+        }
+    }
+
+    /**
+     * Values located by bootstrap, other than from the snapshot itself, by precedence.
+     */
+    private Map<String, String> storeValues() {
+        Map<String, String> values = new HashMap<>();
+        for (PropertySource<?> source : applicationContext.getEnvironment().getPropertySources()) {
+            if (source.getName().startsWith(BOOTSTRAP_PREFIX)
+                    && !source.getName().endsWith(ConfigSnapshotPropertySourceLocator.NAME)
+                    && source instanceof EnumerablePropertySource) {
+                for (String key : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                    if (!values.containsKey(key)) {
+                        flatten(key, source.getProperty(key), values);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Feature flags may be located as maps and lists rather than flat keys.
+     */
+    private static void flatten(String key, Object value, Map<String, String> values) {
+        if (value instanceof Map) {
+            ((Map<?, ?>) value).forEach((name, nested) -> flatten(key + "." + name, nested, values));
+        } else if (value instanceof Collection) {
+            int index = 0;
+            for (Object nested : (Collection<?>) value) {
+                flatten(key + "[" + index++ + "]", nested, values);
+            }
+        } else if (value != null) {
+            values.putIfAbsent(key, value.toString());
+        }
+    }
+
+    private PropertySource<?> snapshotSource() {
+        for (PropertySource<?> source : applicationContext.getEnvironment().getPropertySources()) {
+            if (source.getName().endsWith(ConfigSnapshotPropertySourceLocator.NAME)) {
+                return source;
+            }
+        }
+        return null;
+    }
+}
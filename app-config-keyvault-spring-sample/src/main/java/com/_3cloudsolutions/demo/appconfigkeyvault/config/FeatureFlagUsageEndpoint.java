@@ -0,0 +1,30 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com._3cloudsolutions.demo.appconfigkeyvault.config.FeatureFlagUsage.FlagUsage;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/flagusage lists every feature flag with its evaluation counts, recent rate and when it was
+ * last evaluated. Flags with no evaluations are candidates for removal.
+ */
+@Component
+@Endpoint(id = "flagusage")
+public class FeatureFlagUsageEndpoint {
+
+    private AppFeatureFlagsConfig appFeatureFlagsConfig;
+    private FeatureFlagUsage featureFlagUsage;
+
+    public FeatureFlagUsageEndpoint(AppFeatureFlagsConfig appFeatureFlagsConfig, FeatureFlagUsage featureFlagUsage) {
+        this.appFeatureFlagsConfig = appFeatureFlagsConfig;
+        this.featureFlagUsage = featureFlagUsage;
+    }
+
+    @ReadOperation
+    public Map<String, FlagUsage> usage() {
+        return featureFlagUsage.report(appFeatureFlagsConfig.getAllFeatureFlagNames());
+    }
+}
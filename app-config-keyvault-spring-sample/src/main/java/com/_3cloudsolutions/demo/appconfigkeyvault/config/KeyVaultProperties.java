@@ -0,0 +1,85 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for resolving Key Vault references, bound from key-vault in the bootstrap configuration.
+ */
+public class KeyVaultProperties {
+    // How long a secret without a version is served before it is fetched again in the background
+    private Duration ttl = Duration.ofMinutes(30);
+    // How many secrets are fetched at once
+    private int concurrency = 16;
+    // How long startup waits for a secret before giving up on it
+    private Duration timeout = Duration.ofSeconds(10);
+    private Stub stub = new Stub();
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Stub getStub() {
+        return stub;
+    }
+
+    public void setStub(Stub stub) {
+        this.stub = stub;
+    }
+
+    /**
+     * A vault kept in configuration, used instead of Key Vault when enabled.
+     */
+    public static class Stub {
+        private boolean enabled = false;
+        // Added to every fetch, to mimic a round trip to Key Vault
+        private Duration latency = Duration.ZERO;
+        // Secret values by secret name
+        private Map<String, String> secrets = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public Map<String, String> getSecrets() {
+            return secrets;
+        }
+
+        public void setSecrets(Map<String, String> secrets) {
+            this.secrets = secrets;
+        }
+    }
+}
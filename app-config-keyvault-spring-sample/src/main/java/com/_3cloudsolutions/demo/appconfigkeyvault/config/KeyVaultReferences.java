@@ -0,0 +1,94 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.data.appconfiguration.ConfigurationAsyncClient;
+import com.azure.data.appconfiguration.ConfigurationClientBuilder;
+import com.azure.data.appconfiguration.models.ConfigurationSetting;
+import com.azure.data.appconfiguration.models.SettingFields;
+import com.azure.data.appconfiguration.models.SettingSelector;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the Key Vault references in the App Configuration stores and selects named in the bootstrap
+ * configuration, reading only each setting's content type and value, so their secrets can be prefetched
+ * before App Configuration resolves them one at a time.
+ */
+public final class KeyVaultReferences {
+
+    public static final String CONTENT_TYPE = "application/vnd.microsoft.appconfig.keyvaultref+json";
+    private static final String STORES = "spring.cloud.azure.appconfiguration.stores";
+    // The provider's defaults when a store has no selects
+    private static final String DEFAULT_KEY_FILTER = "/application/";
+    private static final String NO_LABEL = "\0";
+
+    private KeyVaultReferences() {
+    }
+
+    public static List<String> list(Environment environment, TokenCredential credential) {
+        List<Flux<String>> references = new ArrayList<>();
+        for (int store = 0; ; store++) {
+            String prefix = STORES + "[" + store + "].";
+            String endpoint = environment.getProperty(prefix + "endpoint");
+            String connectionString = environment.getProperty(prefix + "connection-string");
+            if (endpoint == null && connectionString == null) {
+                break;
+            }
+            if (!environment.getProperty(prefix + "enabled", Boolean.class, true)) {
+                continue;
+            }
+            ConfigurationClientBuilder builder = new ConfigurationClientBuilder();
+            ConfigurationAsyncClient client = connectionString != null
+                    ? builder.connectionString(connectionString).buildAsyncClient()
+                    : builder.endpoint(endpoint).credential(credential).buildAsyncClient();
+
+            List<SettingSelector> selectors = selectors(environment, prefix);
+            for (SettingSelector selector : selectors) {
+                references.add(client.listConfigurationSettings(selector)
+                        .filter(KeyVaultReferences::isReference)
+                        .mapNotNull(KeyVaultReferences::uri));
+            }
+        }
+        return Flux.merge(references).distinct().collectList().block();
+    }
+
+    public static boolean isReference(ConfigurationSetting setting) {
+        return setting.getContentType() != null && setting.getContentType().startsWith(CONTENT_TYPE);
+    }
+
+    /**
+     * @return the secret identifier in a reference's value, {"uri":"..."}
+     */
+    public static String uri(ConfigurationSetting setting) {
+        Object value = JSONValue.parse(setting.getValue());
+        return value instanceof JSONObject ? (String) ((JSONObject) value).get("uri") : null;
+    }
+
+    private static List<SettingSelector> selectors(Environment environment, String store) {
+        List<SettingSelector> selectors = new ArrayList<>();
+        for (int select = 0; ; select++) {
+            String prefix = store + "selects[" + select + "].";
+            String keyFilter = environment.getProperty(prefix + "key-filter");
+            if (keyFilter == null) {
+                break;
+            }
+            selectors.add(selector(keyFilter, environment.getProperty(prefix + "label-filter", NO_LABEL)));
+        }
+        if (selectors.isEmpty()) {
+            selectors.add(selector(DEFAULT_KEY_FILTER, NO_LABEL));
+        }
+        return selectors;
+    }
+
+    private static SettingSelector selector(String keyFilter, String labelFilter) {
+        return new SettingSelector()
+                .setKeyFilter(keyFilter + "*")
+                .setLabelFilter(labelFilter)
+                .setFields(SettingFields.CONTENT_TYPE, SettingFields.VALUE);
+    }
+}
@@ -0,0 +1,197 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.spring.cloud.config.KeyVaultSecretProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves Key Vault references for App Configuration from a cache. All references can be fetched
+ * concurrently up front with prefetch, rather than one after another as App Configuration reads them.
+ * A reference pinned to a version never changes and is kept for good. One that follows the latest version
+ * is fetched again in the background every ttl, while the cached value keeps being served. A refresh of
+ * App Configuration therefore only goes to Key Vault for references it has not seen before.
+ */
+public class KeyVaultSecretCache implements KeyVaultSecretProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyVaultSecretCache.class);
+
+    private final SecretFetcher fetcher;
+    private final KeyVaultProperties properties;
+    private final ConcurrentMap<String, CachedSecret> secrets;
+
+    public KeyVaultSecretCache(SecretFetcher fetcher, KeyVaultProperties properties) {
+        this(fetcher, properties, SharedSecrets.INSTANCE);
+    }
+
+    KeyVaultSecretCache(SecretFetcher fetcher, KeyVaultProperties properties,
+                        ConcurrentMap<String, CachedSecret> secrets) {
+        this.fetcher = fetcher;
+        this.properties = properties;
+        this.secrets = secrets;
+    }
+
+    @Override
+    public String getSecret(String uri) {
+        CachedSecret secret = secrets.computeIfAbsent(uri, this::newSecret);
+        String value = secret.value.get();
+        return value != null ? value : secret.fetch().block(properties.getTimeout());
+    }
+
+    /**
+     * Fetches every secret not already cached, concurrently, and waits for them. A secret that cannot be
+     * fetched is logged and left for getSecret to try again.
+     */
+    public void prefetch(Collection<String> uris) {
+        long start = System.nanoTime();
+        Long fetched = Flux.fromIterable(uris)
+                .distinct()
+                .<CachedSecret>handle((uri, sink) -> {
+                    try {
+                        sink.next(secrets.computeIfAbsent(uri, this::newSecret));
+                    } catch (IllegalArgumentException ex) {
+                        log.warn("Skipping invalid Key Vault reference {}", uri);
+                    }
+                })
+                .filter(secret -> secret.value.get() == null)
+                .flatMap(secret -> secret.fetch()
+                        .timeout(properties.getTimeout())
+                        .onErrorResume(ex -> {
+                            log.warn("Could not prefetch secret {}", secret.uri, ex);
+                            return Mono.empty();
+                        }), properties.getConcurrency())
+                .count()
+                .block();
+        log.info("Prefetched {} of {} Key Vault secrets in {} ms", fetched, uris.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Forgets every secret whose reference is not among uris, stopping its background refresh.
+     *
+     * @param uris every Key Vault reference the configuration holds now
+     */
+    public void retain(Collection<String> uris) {
+        Set<String> current = Set.copyOf(uris);
+        secrets.values().removeIf(secret -> {
+            if (current.contains(secret.uri)) {
+                return false;
+            }
+            secret.dispose();
+            return true;
+        });
+    }
+
+    /**
+     * The values secrets have been served with, including each one's value before its latest background
+     * refresh, so configuration resolved just before a rotation is still recognised as coming from Key Vault.
+     */
+    public Set<String> servedValues() {
+        Set<String> values = new HashSet<>();
+        for (CachedSecret secret : secrets.values()) {
+            String current = secret.value.get();
+            if (current != null) {
+                values.add(current);
+            }
+            if (secret.previous != null) {
+                values.add(secret.previous);
+            }
+        }
+        return values;
+    }
+
+    private CachedSecret newSecret(String uri) {
+        return new CachedSecret(uri, fetcher, properties.getTtl());
+    }
+
+    /**
+     * Held statically because every App Configuration refresh builds a new bootstrap context, and with it
+     * a new KeyVaultSecretCache. Sharing the secrets lets the new cache serve what the old one fetched, and
+     * leaves one background refresh per secret however many caches have been created.
+     */
+    private static final class SharedSecrets {
+        private static final ConcurrentMap<String, CachedSecret> INSTANCE = new ConcurrentHashMap<>();
+    }
+
+    static final class CachedSecret {
+
+        private final String uri;
+        private final SecretId id;
+        private final SecretFetcher fetcher;
+        private final Duration ttl;
+        private final AtomicReference<String> value = new AtomicReference<>();
+        private volatile String previous;
+        private final AtomicReference<Mono<String>> inFlight = new AtomicReference<>();
+        private Disposable refresh;
+        private boolean disposed;
+
+        CachedSecret(String uri, SecretFetcher fetcher, Duration ttl) {
+            this.uri = uri;
+            this.id = SecretId.parse(uri);
+            this.fetcher = fetcher;
+            this.ttl = ttl;
+        }
+
+        /**
+         * Joins the fetch already under way, or starts one.
+         */
+        Mono<String> fetch() {
+            Mono<String> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            Mono<String> fetch = Mono.defer(() -> fetcher.fetch(id))
+                    .doOnNext(this::store)
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache();
+            return inFlight.compareAndSet(null, fetch) ? fetch : fetch();
+        }
+
+        synchronized boolean isRefreshing() {
+            return refresh != null && !refresh.isDisposed();
+        }
+
+        /**
+         * Stops the background refresh, including one a fetch still under way would have started.
+         */
+        synchronized void dispose() {
+            disposed = true;
+            if (refresh != null) {
+                refresh.dispose();
+            }
+        }
+
+        private void store(String fetched) {
+            String old = value.getAndSet(fetched);
+            if (old != null && !old.equals(fetched)) {
+                previous = old;
+            }
+            if (old == null && id.getVersion() == null) {
+                synchronized (this) {
+                    if (!disposed) {
+                        refresh = refreshEvery(ttl);
+                    }
+                }
+            }
+        }
+
+        private Disposable refreshEvery(Duration ttl) {
+            return Flux.interval(ttl, ttl)
+                    .concatMap(tick -> fetch().onErrorResume(ex -> {
+                        log.warn("Could not refresh secret {}, serving the cached value", uri, ex);
+                        return Mono.empty();
+                    }))
+                    .subscribe();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.security.keyvault.secrets.SecretAsyncClient;
+import com.azure.security.keyvault.secrets.SecretClientBuilder;
+import com.azure.security.keyvault.secrets.models.KeyVaultSecret;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Fetches secrets from Key Vault, with one client per vault.
+ */
+public class KeyVaultSecretFetcher implements SecretFetcher {
+
+    private final TokenCredential credential;
+    private final ConcurrentMap<String, SecretAsyncClient> clients = new ConcurrentHashMap<>();
+
+    public KeyVaultSecretFetcher(TokenCredential credential) {
+        this.credential = credential;
+    }
+
+    @Override
+    public Mono<String> fetch(SecretId secret) {
+        return clients.computeIfAbsent(secret.getVaultUrl(), vaultUrl -> new SecretClientBuilder()
+                        .vaultUrl(vaultUrl)
+                        .credential(credential)
+                        .buildAsyncClient())
+                .getSecret(secret.getName(), secret.getVersion())
+                .map(KeyVaultSecret::getValue);
+    }
+}
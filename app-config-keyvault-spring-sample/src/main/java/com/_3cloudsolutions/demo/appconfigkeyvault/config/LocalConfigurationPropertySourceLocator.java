@@ -0,0 +1,117 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.spring.cloud.config.KeyVaultSecretProvider;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for App Configuration when running locally. Serves the keys and feature flags from a YAML or
+ * properties file, written with the names the application sees, i.e. without the store's key filter:
+ * one.text-value rather than /demofilter/one.text-value, and feature flags under feature-management.
+ * A value written as a Key Vault reference, {"uri":"https://..."}, is resolved like App Configuration would,
+ * through the KeyVaultSecretProvider; with key-vault.stub enabled that needs no vault either.
+ */
+public class LocalConfigurationPropertySourceLocator implements PropertySourceLocator {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalConfigurationPropertySourceLocator.class);
+
+    public static final String NAME = "local-configuration";
+    public static final String FILE_PROPERTY = "local-configuration.file";
+
+    private final KeyVaultSecretProvider secrets;
+
+    /**
+     * @param secrets resolves Key Vault references, or null to leave them as they are
+     */
+    public LocalConfigurationPropertySourceLocator(KeyVaultSecretProvider secrets) {
+        this.secrets = secrets;
+    }
+
+    @Override
+    public PropertySource<?> locate(Environment environment) {
+        Path file = file(environment);
+        Map<String, Object> values = load(file, secrets);
+        log.info("Serving {} configuration keys from {}", values.size(), file.toAbsolutePath());
+        return new MapPropertySource(NAME, values);
+    }
+
+    static Path file(Environment environment) {
+        return Paths.get(environment.getProperty(FILE_PROPERTY, "local-configuration.yml"));
+    }
+
+    /**
+     * @return the file flattened to property names and plain values, or no values if it does not exist yet
+     */
+    static Map<String, Object> load(Path file, KeyVaultSecretProvider secrets) {
+        if (!Files.exists(file)) {
+            return Map.of();
+        }
+        String name = file.getFileName().toString();
+        PropertySourceLoader loader = name.endsWith(".properties")
+                ? new PropertiesPropertySourceLoader()
+                : new YamlPropertySourceLoader();
+        try {
+            List<PropertySource<?>> documents = loader.load(NAME, new FileSystemResource(file));
+            Map<String, Object> values = new HashMap<>();
+            for (PropertySource<?> document : documents) {
+                EnumerablePropertySource<?> source = (EnumerablePropertySource<?>) document;
+                for (String key : source.getPropertyNames()) {
+                    Object value = source.getProperty(key);
+                    values.putIfAbsent(key, value instanceof OriginTrackedValue
+                            ? ((OriginTrackedValue) value).getValue()
+                            : value);
+                }
+            }
+            if (secrets != null) {
+                resolveReferences(values, secrets);
+            }
+            return values;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + file, ex);
+        }
+    }
+
+    /**
+     * Replaces Key Vault references with their secrets, fetching them all at once first when the provider
+     * can prefetch.
+     */
+    private static void resolveReferences(Map<String, Object> values, KeyVaultSecretProvider secrets) {
+        Map<String, String> references = new HashMap<>();
+        values.forEach((key, value) -> {
+            if (value instanceof String && ((String) value).trim().startsWith("{")) {
+                Object reference = JSONValue.parse((String) value);
+                if (reference instanceof JSONObject && ((JSONObject) reference).get("uri") instanceof String) {
+                    references.put(key, (String) ((JSONObject) reference).get("uri"));
+                }
+            }
+        });
+        if (references.isEmpty()) {
+            return;
+        }
+        if (secrets instanceof KeyVaultSecretCache) {
+            ((KeyVaultSecretCache) secrets).prefetch(references.values());
+        }
+        references.forEach((key, uri) -> values.put(key, secrets.getSecret(uri)));
+    }
+}
@@ -0,0 +1,208 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import com.azure.spring.cloud.config.KeyVaultSecretProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBean;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes edits of the local configuration file into the running application as soon as the file is saved,
+ * instead of waiting for the next sentinel poll. Only keys whose values changed are applied: the
+ * configuration properties beans they belong to are rebound and an EnvironmentChangeEvent naming just those
+ * keys is published. Other beans, and the rest of the environment, are left alone. A bean that fails to
+ * rebind is logged and the event is still published, so listeners see every key the environment now holds.
+ */
+@Component
+@ConditionalOnProperty(prefix = "local-configuration", name = "enabled", havingValue = "true")
+public class LocalConfigurationWatcher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalConfigurationWatcher.class);
+
+    // Editors often save in several writes; wait this long for the file to settle
+    private static final long SETTLE_MILLIS = 50;
+
+    private ConfigurableApplicationContext applicationContext;
+    private ConfigurationPropertiesRebinder rebinder;
+    private KeyVaultSecretProvider secrets;
+    private final Path file;
+    private Map<String, ConfigurationPropertyName> prefixes;
+    private WatchService watchService;
+
+    public LocalConfigurationWatcher(ConfigurableApplicationContext applicationContext,
+                                     ConfigurationPropertiesRebinder rebinder,
+                                     ObjectProvider<KeyVaultSecretProvider> secrets) {
+        this.applicationContext = applicationContext;
+        this.rebinder = rebinder;
+        this.secrets = secrets.getIfAvailable();
+        this.file = LocalConfigurationPropertySourceLocator.file(applicationContext.getEnvironment()).toAbsolutePath();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        Thread watcher = new Thread(this::watch, "local-configuration-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for configuration changes", file);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> file.getFileName().equals(event.context()));
+                key.reset();
+                if (changed) {
+                    settle();
+                    try {
+                        refresh();
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not apply the changes to {}, watching for the next one", file, ex);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // shutting down
+        }
+    }
+
+    private void settle() throws InterruptedException {
+        WatchKey key;
+        while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    /**
+     * Applies the file's current contents and returns the keys that changed.
+     */
+    public synchronized Set<String> refresh() {
+        long start = System.nanoTime();
+        Map<String, Object> values;
+        try {
+            values = LocalConfigurationPropertySourceLocator.load(file, secrets);
+        } catch (RuntimeException ex) {
+            log.warn("Could not read {}, keeping the current configuration", file, ex);
+            return Set.of();
+        }
+
+        ConfigurableEnvironment environment = applicationContext.getEnvironment();
+        PropertySource<?> current = propertySource(environment);
+        if (current == null) {
+            log.warn("No {} property source to update", LocalConfigurationPropertySourceLocator.NAME);
+            return Set.of();
+        }
+        Set<String> keys = changedKeys(current, values);
+        if (keys.isEmpty()) {
+            return keys;
+        }
+        environment.getPropertySources().replace(current.getName(), new MapPropertySource(current.getName(), values));
+
+        int rebound = 0;
+        for (Map.Entry<String, ConfigurationPropertyName> bean : prefixes().entrySet()) {
+            if (keys.stream().anyMatch(changed -> covers(bean.getValue(), changed))) {
+                try {
+                    if (rebinder.rebind(bean.getKey())) {
+                        rebound++;
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("Could not rebind {} to the changed configuration", bean.getKey(), ex);
+                }
+            }
+        }
+        applicationContext.publishEvent(new EnvironmentChangeEvent(this, keys));
+        log.info("Applied {} changed configuration keys, rebound {} beans in {} ms", keys.size(), rebound,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return keys;
+    }
+
+    /**
+     * The located source is added under its own name or, by Spring Cloud, as bootstrapProperties-name.
+     */
+    private static PropertySource<?> propertySource(ConfigurableEnvironment environment) {
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (source.getName().endsWith(LocalConfigurationPropertySourceLocator.NAME)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> changedKeys(PropertySource<?> current, Map<String, Object> values) {
+        Set<String> keys = new HashSet<>();
+        values.forEach((key, value) -> {
+            if (!Objects.equals(value, current.getProperty(key))) {
+                keys.add(key);
+            }
+        });
+        if (current instanceof EnumerablePropertySource) {
+            for (String key : ((EnumerablePropertySource<?>) current).getPropertyNames()) {
+                if (!values.containsKey(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static boolean covers(ConfigurationPropertyName prefix, String key) {
+        ConfigurationPropertyName name = ConfigurationPropertyName.adapt(key, '.');
+        return prefix.isEmpty() || prefix.equals(name) || prefix.isAncestorOf(name);
+    }
+
+    /**
+     * Configuration properties prefixes by bean name, read once since the beans do not change.
+     */
+    private Map<String, ConfigurationPropertyName> prefixes() {
+        if (prefixes == null) {
+            Map<String, ConfigurationPropertyName> found = new HashMap<>();
+            ConfigurationPropertiesBean.getAll(applicationContext).forEach((name, bean) -> {
+                String prefix = bean.getAnnotation().prefix();
+                found.put(name, ConfigurationPropertyName.of(prefix.isEmpty() ? bean.getAnnotation().value() : prefix));
+            });
+            prefixes = found;
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,12 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Fetches a secret's value from a vault.
+ */
+@FunctionalInterface
+public interface SecretFetcher {
+
+    Mono<String> fetch(SecretId secret);
+}
@@ -0,0 +1,45 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import java.net.URI;
+
+/**
+ * A Key Vault secret identifier, https://{vault}.vault.azure.net/secrets/{name}[/{version}].
+ */
+public class SecretId {
+    private final String vaultUrl;
+    private final String name;
+    private final String version;
+
+    private SecretId(String vaultUrl, String name, String version) {
+        this.vaultUrl = vaultUrl;
+        this.name = name;
+        this.version = version;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the uri is not a secret identifier
+     */
+    public static SecretId parse(String uri) {
+        URI parsed = URI.create(uri);
+        String[] path = parsed.getPath().replaceAll("^/+|/+$", "").split("/");
+        if (parsed.getHost() == null || path.length < 2 || path.length > 3 || !path[0].equals("secrets")) {
+            throw new IllegalArgumentException("Not a Key Vault secret identifier: " + uri);
+        }
+        return new SecretId(parsed.getScheme() + "://" + parsed.getAuthority(), path[1], path.length == 3 ? path[2] : null);
+    }
+
+    public String getVaultUrl() {
+        return vaultUrl;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the pinned version, or null for the latest
+     */
+    public String getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,32 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Serves secrets from configuration instead of Key Vault, for running and testing without a vault.
+ * Secrets are looked up by name, whatever vault or version the reference names.
+ */
+public class StubSecretFetcher implements SecretFetcher {
+
+    private final Map<String, String> secrets;
+    private final Duration latency;
+
+    public StubSecretFetcher(Map<String, String> secrets, Duration latency) {
+        this.secrets = Map.copyOf(secrets);
+        this.latency = latency;
+    }
+
+    @Override
+    public Mono<String> fetch(SecretId secret) {
+        Mono<String> value = Mono.defer(() -> {
+            String found = secrets.get(secret.getName());
+            return found == null
+                    ? Mono.error(new IllegalArgumentException("No secret named " + secret.getName() + " in the stub vault"))
+                    : Mono.just(found);
+        });
+        return latency.isZero() ? value : Mono.delay(latency).then(value);
+    }
+}
@@ -1,58 +1,59 @@
 package com._3cloudsolutions.demo.appconfigkeyvault.controller;
 
-import com._3cloudsolutions.demo.appconfigkeyvault.config.AdditionalValuesConfig;
-import com._3cloudsolutions.demo.appconfigkeyvault.config.MoreValuesConfig;
-import com._3cloudsolutions.demo.appconfigkeyvault.config.ValuesConfig;
-import com._3cloudsolutions.demo.appconfigkeyvault.models.Response;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com._3cloudsolutions.demo.appconfigkeyvault.models.ConfigSectionRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 import static org.springframework.http.MediaType.*;
 
+/**
+ * Serves the pre-rendered bytes from ConfigSectionRegistry, which are written to the response as they are.
+ * /allConfigs is streamed one section per line, each written as the client reads the one before.
+ */
 @RestController
 public class AppConfigController {
 
-    private ValuesConfig valuesConfig;
-    private MoreValuesConfig moreValuesConfig;
-    private AdditionalValuesConfig additionalValuesConfig;
-    private Response response;
-
-    public AppConfigController(ValuesConfig valuesConfig,
-                               MoreValuesConfig moreValuesConfig,
-                               AdditionalValuesConfig additionalValuesConfig,
-                               Response response) {
-        this.additionalValuesConfig = additionalValuesConfig;
-        this.valuesConfig = valuesConfig;
-        this.moreValuesConfig = moreValuesConfig;
-        this.response = response;
+    private ConfigSectionRegistry configSectionRegistry;
+
+    public AppConfigController(ConfigSectionRegistry configSectionRegistry) {
+        this.configSectionRegistry = configSectionRegistry;
+    }
+
+    @GetMapping(value = "/values/{section}", produces = APPLICATION_JSON_VALUE)
+    public byte[] getSection(@PathVariable String section) {
+        byte[] json = configSectionRegistry.getSection(section);
+        if (json == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No configuration section " + section);
+        }
+        return json;
     }
 
-    @GetMapping(value = "/values", produces = APPLICATION_NDJSON_VALUE)
-    public Mono<String> getValues() throws JsonProcessingException {
-        return Mono.just(this.valuesConfig.toJson());
+    @GetMapping(value = "/values", produces = APPLICATION_JSON_VALUE)
+    public byte[] getValues() {
+        return getSection("one");
     }
 
-    @GetMapping(value = "/moreValues", produces = APPLICATION_NDJSON_VALUE)
-    public Mono<String> getMoreValues() throws JsonProcessingException {
-        return Mono.just(this.moreValuesConfig.toJson());
+    @GetMapping(value = "/moreValues", produces = APPLICATION_JSON_VALUE)
+    public byte[] getMoreValues() {
+        return getSection("two");
     }
 
-    @GetMapping(value = "/additionalValues", produces = APPLICATION_NDJSON_VALUE)
-    public Mono<String> getAdditionalValues() throws JsonProcessingException {
-        return Mono.just(this.additionalValuesConfig.toJson());
+    @GetMapping(value = "/additionalValues", produces = APPLICATION_JSON_VALUE)
+    public byte[] getAdditionalValues() {
+        return getSection("three");
     }
 
     @GetMapping(value = "/allConfigs", produces = APPLICATION_NDJSON_VALUE)
-    public Flux<String> getConfigsFlux() throws JsonProcessingException {
-        return Flux.just(response.toJson());
+    public Flux<byte[]> getAllConfigs() {
+        return configSectionRegistry.getSections();
     }
 
     @GetMapping(value = "/allConfigsTemplate", produces = APPLICATION_NDJSON_VALUE)
-    public ResponseEntity<String> getConfigsTemplate() throws JsonProcessingException {
-        return new ResponseEntity<>(response.toJson(), HttpStatus.OK);
+    public ResponseEntity<Flux<byte[]>> getConfigsTemplate() {
+        return new ResponseEntity<>(configSectionRegistry.getSections(), HttpStatus.OK);
     }
 }
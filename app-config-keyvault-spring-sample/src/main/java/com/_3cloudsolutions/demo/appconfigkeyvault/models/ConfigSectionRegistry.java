@@ -0,0 +1,116 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.models;
+
+import com._3cloudsolutions.demo.appconfigkeyvault.config.ConfigSection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Every configuration section named in config-sections.names, bound from its prefix and rendered once into
+ * JSON bytes, indexed by name. Adding a section takes a name in configuration, not a class. Sections are
+ * bound straight from the environment, so when configuration changes only the sections whose keys changed
+ * are bound and rendered again. Each render publishes the next ConfigSnapshot, which requests read
+ * through one volatile reference.
+ */
+@Service
+public class ConfigSectionRegistry {
+
+    public static final String NAMES_PROPERTY = "config-sections.names";
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigSectionRegistry.class);
+
+    private Environment environment;
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+
+    public ConfigSectionRegistry(Environment environment) {
+        this.environment = environment;
+        renderAll();
+    }
+
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the section as JSON, or null if there is no such section
+     */
+    public byte[] getSection(String name) {
+        return snapshot.getSection(name);
+    }
+
+    /**
+     * Every section, one per element, in the order they are named. The sections are those current when the
+     * Flux is subscribed to, and are only read as the subscriber asks for them.
+     */
+    public Flux<byte[]> getSections() {
+        return Flux.defer(() -> Flux.fromIterable(snapshot.getSections()));
+    }
+
+    public Set<String> getSectionNames() {
+        return snapshot.getSectionNames();
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Published after the environment has changed, whether by a full refresh or by a targeted change.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith("config-sections"))) {
+            renderAll();
+            return;
+        }
+        List<String> changed = snapshot.getSectionNames().stream()
+                .filter(name -> event.getKeys().stream().anyMatch(key -> key.equals(name) || key.startsWith(name + ".")))
+                .collect(Collectors.toList());
+        if (!changed.isEmpty()) {
+            render(changed);
+        }
+    }
+
+    private synchronized void renderAll() {
+        Binder binder = Binder.get(environment);
+        List<String> names = binder.bind(NAMES_PROPERTY, Bindable.listOf(String.class)).orElse(List.of());
+        Map<String, byte[]> sections = new LinkedHashMap<>();
+        for (String name : names) {
+            sections.put(name, render(binder, name));
+        }
+        publish(snapshot.next(sections));
+    }
+
+    private synchronized void render(Collection<String> names) {
+        Binder binder = Binder.get(environment);
+        Map<String, byte[]> sections = new LinkedHashMap<>();
+        for (String name : names) {
+            sections.put(name, render(binder, name));
+        }
+        publish(snapshot.with(sections));
+    }
+
+    private static byte[] render(Binder binder, String name) {
+        ConfigSection section = binder.bind(name, ConfigSection.class).orElseGet(ConfigSection::new);
+        return section.toJson(name).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void publish(ConfigSnapshot next) {
+        snapshot = next;
+        log.debug("Rendered {} configuration sections, version {}", next.getSectionNames().size(), next.getVersion());
+    }
+}
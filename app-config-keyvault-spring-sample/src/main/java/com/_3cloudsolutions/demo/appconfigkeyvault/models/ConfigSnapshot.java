@@ -0,0 +1,63 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The configuration sections rendered once into JSON bytes, so serving them costs no serialization. A
+ * snapshot never changes: when configuration does, ConfigSectionRegistry publishes the next version. The
+ * arrays are shared by every request and must never be modified.
+ */
+public final class ConfigSnapshot {
+
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, Map.of());
+
+    private final long version;
+    private final Map<String, byte[]> sections;
+
+    private ConfigSnapshot(long version, Map<String, byte[]> sections) {
+        this.version = version;
+        this.sections = sections;
+    }
+
+    /**
+     * @return the section as JSON, or null if there is no such section
+     */
+    public byte[] getSection(String name) {
+        return sections.get(name);
+    }
+
+    /**
+     * Every section, in the order they are named.
+     */
+    public Collection<byte[]> getSections() {
+        return sections.values();
+    }
+
+    public Set<String> getSectionNames() {
+        return sections.keySet();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param sections every section of the next version, in order
+     */
+    ConfigSnapshot next(Map<String, byte[]> sections) {
+        return new ConfigSnapshot(version + 1, Collections.unmodifiableMap(new LinkedHashMap<>(sections)));
+    }
+
+    /**
+     * @param changed sections to replace, or to add after the existing ones
+     */
+    ConfigSnapshot with(Map<String, byte[]> changed) {
+        Map<String, byte[]> next = new LinkedHashMap<>(sections);
+        next.putAll(changed);
+        return next(next);
+    }
+}
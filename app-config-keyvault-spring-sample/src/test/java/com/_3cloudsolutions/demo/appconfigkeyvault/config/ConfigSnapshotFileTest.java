@@ -0,0 +1,52 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigSnapshotFileTest {
+
+    private static final Map<String, String> VALUES = Map.of("db.pwd", "s3cr3t-from-vault", "content.value1", "hello");
+    private static final Set<String> FROM_KEY_VAULT = Set.of("s3cr3t-from-vault");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void encryptsValuesFromKeyVaultWhateverTheirKeyIsCalled() throws Exception {
+        ConfigSnapshotFile file = new ConfigSnapshotFile(properties(Base64.getEncoder().encodeToString(new byte[32])));
+
+        assertThat(file.write(VALUES, key -> FROM_KEY_VAULT.contains(VALUES.get(key)))).isEqualTo(2);
+
+        String written = new String(Files.readAllBytes(file.getFile()), StandardCharsets.ISO_8859_1);
+        assertThat(written).contains("hello").doesNotContain("s3cr3t-from-vault");
+        ConfigSnapshotPropertySource snapshot = file.read("snapshot");
+        assertThat(snapshot.getProperty("db.pwd")).isEqualTo("s3cr3t-from-vault");
+        assertThat(snapshot.getProperty("content.value1")).isEqualTo("hello");
+    }
+
+    @Test
+    void leavesValuesFromKeyVaultOutWithoutAKey() throws Exception {
+        ConfigSnapshotFile file = new ConfigSnapshotFile(properties(null));
+
+        assertThat(file.write(VALUES, key -> FROM_KEY_VAULT.contains(VALUES.get(key)))).isEqualTo(1);
+
+        ConfigSnapshotPropertySource snapshot = file.read("snapshot");
+        assertThat(snapshot.getPropertyNames()).containsExactly("content.value1");
+    }
+
+    private ConfigSnapshotProperties properties(String key) {
+        ConfigSnapshotProperties properties = new ConfigSnapshotProperties();
+        properties.setFile(directory.resolve("config-snapshot.bin").toString());
+        properties.setKey(key);
+        return properties;
+    }
+}
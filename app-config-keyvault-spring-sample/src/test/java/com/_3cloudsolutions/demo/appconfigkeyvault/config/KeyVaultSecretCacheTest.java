@@ -0,0 +1,61 @@
+package com._3cloudsolutions.demo.appconfigkeyvault.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyVaultSecretCacheTest {
+
+    private static final String PASSWORD = "https://demo.vault.azure.net/secrets/db-password";
+    private static final String PINNED = "https://demo.vault.azure.net/secrets/api-key/1234";
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final ConcurrentMap<String, KeyVaultSecretCache.CachedSecret> secrets = new ConcurrentHashMap<>();
+    private KeyVaultProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KeyVaultProperties();
+    }
+
+    @Test
+    void refreshedCachesServeWhatEarlierOnesFetched() {
+        cache().prefetch(List.of(PASSWORD, PINNED));
+
+        KeyVaultSecretCache refreshed = cache();
+        refreshed.prefetch(List.of(PASSWORD, PINNED));
+
+        assertThat(refreshed.getSecret(PASSWORD)).isEqualTo("db-password value");
+        assertThat(refreshed.getSecret(PINNED)).isEqualTo("api-key value");
+        assertThat(fetches).hasValue(2);
+        assertThat(refreshed.servedValues()).containsExactlyInAnyOrder("db-password value", "api-key value");
+    }
+
+    @Test
+    void stopsRefreshingReferencesThatHaveGone() {
+        cache().prefetch(List.of(PASSWORD, PINNED));
+        KeyVaultSecretCache.CachedSecret password = secrets.get(PASSWORD);
+        assertThat(password.isRefreshing()).isTrue();
+        assertThat(secrets.get(PINNED).isRefreshing()).isFalse();
+
+        KeyVaultSecretCache refreshed = cache();
+        refreshed.retain(List.of(PINNED));
+
+        assertThat(secrets).containsOnlyKeys(PINNED);
+        assertThat(password.isRefreshing()).isFalse();
+    }
+
+    private KeyVaultSecretCache cache() {
+        return new KeyVaultSecretCache(secret -> Mono.fromSupplier(() -> {
+            fetches.incrementAndGet();
+            return secret.getName() + " value";
+        }), properties, secrets);
+    }
+}
@@ -0,0 +1,154 @@
+package com._3cloudsolutions.appinsightinprocessagent.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures what the Application Insights agent costs HelloController: throughput, latency percentiles, allocation
+ * rate, GC and startup time, first without the agent and then with it at each sampling percentage. Every scenario
+ * runs in a fresh JVM with the same heap settings and exports to a local stub of the ingestion endpoint.
+ *
+ * Not part of the normal build, since it takes minutes. Run it with mvn -Pbenchmark test, which copies the agent
+ * into target/resources under its versioned name and writes the report to target/benchmark/agent-overhead.md.
+ * Without an agent the benchmark fails rather than measure the baseline alone. Settings are system properties,
+ * for example -Dbenchmark.duration=60s -Dbenchmark.sampling=100,10,1.
+ */
+class AgentOverheadBenchmark {
+
+    private final Duration warmup = duration("benchmark.warmup", "15s");
+    private final Duration measurement = duration("benchmark.duration", "30s");
+    private final int clients = Integer.getInteger("benchmark.clients", 16);
+    private final List<Integer> sampling = Arrays.stream(System.getProperty("benchmark.sampling", "100,10").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .toList();
+    private final List<String> jvmOptions = List.of(System.getProperty("benchmark.jvm-options", "-Xms512m -Xmx512m").split("\\s+"));
+    private final Path agentJar = agentJar();
+    private final Path reportDir = Path.of(System.getProperty("benchmark.report-dir", "target/benchmark"));
+
+    @Test
+    void measureAgentOverhead() throws Exception {
+        assertThat(agentJar).as("No agent in target/resources or at -Dbenchmark.agent-jar, run with -Pbenchmark to copy it")
+                .isNotNull()
+                .isRegularFile();
+        Files.createDirectories(reportDir);
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("no agent", null, 0));
+        sampling.forEach(percentage -> scenarios.add(new Scenario("agent, " + percentage + "% sampling", agentJar, percentage)));
+
+        List<Result> results = new ArrayList<>();
+        try (StubIngestionServer ingestion = new StubIngestionServer()) {
+            for (Scenario scenario : scenarios) {
+                results.add(run(scenario, ingestion));
+            }
+        }
+
+        String report = report(results);
+        Files.writeString(reportDir.resolve("agent-overhead.md"), report);
+        System.out.println(report);
+        assertThat(results).allSatisfy(result -> assertThat(result.load().errors()).isZero());
+    }
+
+    private Result run(Scenario scenario, StubIngestionServer ingestion) throws Exception {
+        Path log = reportDir.resolve(scenario.name().replaceAll("[^A-Za-z0-9]+", "-") + ".log");
+        try (AppProcess app = AppProcess.start(classpath(), jvmOptions, scenario.agentJar(), scenario.sampling(),
+                ingestion.connectionString(), log, Duration.ofMinutes(2))) {
+            LoadGenerator load = new LoadGenerator(app.uri("/api/hello"), clients);
+            load.run(warmup);
+
+            long allocated = app.allocatedBytes();
+            AppProcess.Gc gc = app.gc();
+            StubIngestionServer.Totals exported = ingestion.totals();
+            LoadGenerator.LoadResult result = load.run(measurement);
+            return new Result(scenario, app.getStartup(), result,
+                    app.allocatedBytes() - allocated, app.gc().minus(gc), ingestion.totals().minus(exported));
+        }
+    }
+
+    /**
+     * The application's own classes and runtime dependencies, as written by the benchmark profile, so the
+     * application runs as it would from app.jar and without the test classpath.
+     */
+    private static String classpath() throws Exception {
+        String file = System.getProperty("benchmark.classpath-file");
+        if (file == null || !Files.isRegularFile(Path.of(file))) {
+            return System.getProperty("java.class.path");
+        }
+        return System.getProperty("benchmark.classes", "target/classes") + File.pathSeparator
+                + Files.readString(Path.of(file)).trim();
+    }
+
+    private String report(List<Result> results) {
+        Result baseline = results.get(0);
+        StringBuilder report = new StringBuilder()
+                .append("# Application Insights agent overhead\n\n")
+                .append(String.format(Locale.ROOT, "%s, Java %s, %d clients, %ss warmup, %ss measured, JVM options %s%n%n",
+                        OffsetDateTime.now().withNano(0), System.getProperty("java.version"), clients,
+                        warmup.toSeconds(), measurement.toSeconds(), String.join(" ", jvmOptions)))
+                .append("| Scenario | Startup ms | Requests/s | vs no agent | p50 ms | p99 ms | p99.9 ms "
+                        + "| Alloc MB/s | Alloc KB/request | GCs | GC ms | Items exported |\n")
+                .append("|---|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|\n");
+        for (Result result : results) {
+            double seconds = result.load().elapsed().toNanos() / 1e9;
+            report.append(String.format(Locale.ROOT,
+                    "| %s | %d | %.0f | %+.1f%% | %.3f | %.3f | %.3f | %.1f | %.2f | %d | %d | %d |%n",
+                    result.scenario().name(),
+                    result.startup().toMillis(),
+                    result.load().requestsPerSecond(),
+                    100 * (result.load().requestsPerSecond() / baseline.load().requestsPerSecond() - 1),
+                    result.load().percentileMillis(0.5),
+                    result.load().percentileMillis(0.99),
+                    result.load().percentileMillis(0.999),
+                    result.allocatedBytes() / seconds / (1024 * 1024),
+                    result.load().requests() == 0 ? 0.0 : result.allocatedBytes() / 1024.0 / result.load().requests(),
+                    result.gc().count(),
+                    result.gc().millis(),
+                    result.exported().items()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * The configured agent, or else the one the benchmark profile copied, whatever its version.
+     *
+     * @return the agent, or null if there is none
+     */
+    private static Path agentJar() {
+        String configured = System.getProperty("benchmark.agent-jar");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        Path resources = Path.of("target/resources");
+        try (Stream<Path> files = Files.list(resources)) {
+            return files.filter(file -> file.getFileName().toString().matches("applicationinsights-agent-.+\\.jar"))
+                    .findFirst()
+                    .orElse(null);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return Duration.parse("PT" + System.getProperty(property, defaultValue).toUpperCase(Locale.ROOT));
+    }
+
+    private record Scenario(String name, Path agentJar, int sampling) {
+    }
+
+    private record Result(Scenario scenario, Duration startup, LoadGenerator.LoadResult load, long allocatedBytes,
+                          AppProcess.Gc gc, StubIngestionServer.Totals exported) {
+    }
+}
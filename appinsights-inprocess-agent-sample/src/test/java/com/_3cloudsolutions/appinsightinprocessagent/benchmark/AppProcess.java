@@ -0,0 +1,168 @@
+package com._3cloudsolutions.appinsightinprocessagent.benchmark;
+
+import com._3cloudsolutions.appinsightinprocessagent.AppInsightInprocessAgentApplication;
+import com.sun.management.ThreadMXBean;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sample application in a JVM of its own, with or without the agent. Startup is timed from launching the
+ * process to the first successful response. Allocation and GC are read from the application's platform MBeans
+ * over a local JMX connection.
+ */
+class AppProcess implements AutoCloseable {
+
+    private final Process process;
+    private final int port;
+    private final Duration startup;
+    private final JMXConnector connector;
+    private final MBeanServerConnection mbeans;
+    private final ThreadMXBean threads;
+
+    private AppProcess(Process process, int port, Duration startup, JMXConnector connector) throws IOException {
+        this.process = process;
+        this.port = port;
+        this.startup = startup;
+        this.connector = connector;
+        this.mbeans = connector.getMBeanServerConnection();
+        this.threads = ManagementFactory.newPlatformMXBeanProxy(mbeans, ManagementFactory.THREAD_MXBEAN_NAME,
+                ThreadMXBean.class);
+    }
+
+    /**
+     * @param agentJar the agent to attach, or null to run without it
+     * @param sampling the percentage of requests the agent keeps
+     */
+    static AppProcess start(String classpath, List<String> jvmOptions, Path agentJar, int sampling,
+                            String connectionString, Path log, Duration timeout) throws Exception {
+        int port = freePort();
+        int jmxPort = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dcom.sun.management.jmxremote.port=" + jmxPort);
+        command.add("-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort);
+        command.add("-Dcom.sun.management.jmxremote.authenticate=false");
+        command.add("-Dcom.sun.management.jmxremote.ssl=false");
+        command.add("-Djava.rmi.server.hostname=127.0.0.1");
+        if (agentJar != null) {
+            command.add("-javaagent:" + agentJar.toAbsolutePath());
+            command.add("-Dapplicationinsights.sampling.percentage=" + sampling);
+        }
+        command.add("-cp");
+        command.add(classpath);
+        command.add(AppInsightInprocessAgentApplication.class.getName());
+        command.add("--server.port=" + port);
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        builder.environment().remove("APPLICATIONINSIGHTS_CONNECTION_STRING");
+        if (agentJar != null) {
+            builder.environment().put("APPLICATIONINSIGHTS_CONNECTION_STRING", connectionString);
+        }
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            awaitFirstResponse(process, URI.create("http://127.0.0.1:" + port + "/api/hello"), start + timeout.toNanos());
+            Duration startup = Duration.ofNanos(System.nanoTime() - start);
+            JMXConnector connector = JMXConnectorFactory.connect(
+                    new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + jmxPort + "/jmxrmi"));
+            return new AppProcess(process, port, startup, connector);
+        } catch (Exception ex) {
+            process.destroyForcibly();
+            throw ex;
+        }
+    }
+
+    URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    Duration getStartup() {
+        return startup;
+    }
+
+    /**
+     * Bytes allocated so far by the threads that are alive now. Request and agent threads are pooled and outlive
+     * a measurement, so the difference across one is the allocation during it.
+     */
+    long allocatedBytes() {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    Gc gc() throws Exception {
+        long count = 0;
+        long millis = 0;
+        for (ObjectName collector : mbeans.queryNames(new ObjectName("java.lang:type=GarbageCollector,*"), null)) {
+            count += (Long) mbeans.getAttribute(collector, "CollectionCount");
+            millis += (Long) mbeans.getAttribute(collector, "CollectionTime");
+        }
+        return new Gc(count, millis);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            connector.close();
+        } finally {
+            process.destroy();
+            if (!process.waitFor(15, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void awaitFirstResponse(Process process, URI uri, long deadline) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + " during startup");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("The application did not answer " + uri + " in time");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    record Gc(long count, long millis) {
+
+        Gc minus(Gc earlier) {
+            return new Gc(count - earlier.count, millis - earlier.millis);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com._3cloudsolutions.appinsightinprocessagent.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load: each client sends a request, waits for the response and sends the next. The latency of
+ * every request is kept, so percentiles are exact rather than estimated from buckets.
+ */
+class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final HttpRequest request;
+    private final int clients;
+
+    LoadGenerator(URI uri, int clients) {
+        this.request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).GET().build();
+        this.clients = clients;
+    }
+
+    LoadResult run(Duration duration) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            List<Future<ClientResult>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> runClient(deadline)));
+            }
+            long[] latencies = new long[0];
+            long errors = 0;
+            for (Future<ClientResult> future : futures) {
+                ClientResult result = future.get();
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + result.count);
+                System.arraycopy(result.latencies, 0, latencies, offset, result.count);
+                errors += result.errors;
+            }
+            Arrays.sort(latencies);
+            return new LoadResult(latencies, errors, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ClientResult runClient(long deadline) {
+        ClientResult result = new ClientResult();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    result.add(System.nanoTime() - start);
+                } else {
+                    result.errors++;
+                }
+            } catch (Exception ex) {
+                if (ex instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                result.errors++;
+            }
+        }
+        return result;
+    }
+
+    private static final class ClientResult {
+        private long[] latencies = new long[1 << 14];
+        private int count;
+        private long errors;
+
+        void add(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    /**
+     * @param latencies nanoseconds per successful request, sorted
+     */
+    record LoadResult(long[] latencies, long errors, Duration elapsed) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        double requestsPerSecond() {
+            return latencies.length / (elapsed.toNanos() / 1e9);
+        }
+
+        /**
+         * @return the latency in milliseconds that the given fraction of requests came in under
+         */
+        double percentileMillis(double fraction) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(fraction * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com._3cloudsolutions.appinsightinprocessagent.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Stands in for Application Insights ingestion and live metrics, so the agent exports at its normal rate without
+ * leaving the machine. Telemetry is counted and thrown away.
+ */
+class StubIngestionServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    StubIngestionServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String connectionString() {
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        return "InstrumentationKey=00000000-0000-0000-0000-000000000000;IngestionEndpoint=" + endpoint
+                + ";LiveEndpoint=" + endpoint;
+    }
+
+    Totals totals() {
+        return new Totals(batches.sum(), items.sum(), bytes.sum());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        byte[] response = new byte[0];
+        if (exchange.getRequestURI().getPath().endsWith("/track")) {
+            int count = countItems(body, "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")));
+            batches.increment();
+            items.add(count);
+            bytes.add(body.length);
+            response = ("{\"itemsReceived\":" + count + ",\"itemsAccepted\":" + count + ",\"errors\":[]}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+        } else {
+            // Live metrics: nobody is watching, so the agent stays on its slow ping
+            exchange.getResponseHeaders().add("x-ms-qps-subscribed", "false");
+        }
+        exchange.sendResponseHeaders(200, response.length == 0 ? -1 : response.length);
+        if (response.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+        exchange.close();
+    }
+
+    /**
+     * The agent sends telemetry as newline-delimited JSON, one item per line.
+     */
+    private static int countItems(byte[] body, boolean gzip) throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(body)) : new ByteArrayInputStream(body)) {
+            String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return (int) json.lines().filter(line -> !line.isBlank()).count();
+        }
+    }
+
+    record Totals(long batches, long items, long bytes) {
+
+        Totals minus(Totals earlier) {
+            return new Totals(batches - earlier.batches, items - earlier.items, bytes - earlier.bytes);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties("sms.delivery-reports")
+@Getter
+@Setter
+public class DeliveryReportConfig {
+    // Number of message ids whose latest status is kept; the oldest are evicted first. About 40 bytes each.
+    private int capacity = 262_144;
+}
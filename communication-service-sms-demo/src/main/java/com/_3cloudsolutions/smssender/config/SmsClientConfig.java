@@ -1,14 +1,23 @@
 package com._3cloudsolutions.smssender.config;
 
+import com._3cloudsolutions.smssender.service.SmsTransportMetrics;
 import com.azure.communication.sms.SmsAsyncClient;
-import com.azure.communication.sms.SmsClient;
 import com.azure.communication.sms.SmsClientBuilder;
 import com.azure.communication.sms.SmsServiceVersion;
 import com.azure.core.credential.AzureKeyCredential;
 import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.http.policy.FixedDelay;
+import com.azure.core.http.policy.RetryPolicy;
 import com.azure.identity.DefaultAzureCredentialBuilder;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class SmsClientConfig {
@@ -19,29 +28,45 @@ public class SmsClientConfig {
         this.smsServerConfig = smsServerConfig;
     }
 
-    @Bean
-    public SmsClient smsClient() {
-        return new SmsClientBuilder()
-                // Key credential works below
-                .endpoint(smsServerConfig.getEndpoint())
-                .credential(new AzureKeyCredential(smsServerConfig.getAzureKeyCredential()))
-
-                // Connection String works below
-                //.connectionString(smsServerConfig.getConnectionString())
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider smsConnectionProvider(SmsTransportMetrics smsTransportMetrics) {
+        SmsServerConfig.Http http = smsServerConfig.getHttp();
+        return ConnectionProvider.builder("sms")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getKeepAlive())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getKeepAlive())
+                .metrics(true, () -> smsTransportMetrics)
+                .build();
+    }
 
-                // DefaultCredentialBuilder below won't work CURRENTLY without client_id, tenant and secret
-                // Microsoft hasn't implemented it yet
-                //
-                //.endpoint(smsServerConfig.getEndpoint())
-                //.credential(new DefaultAzureCredentialBuilder().build())
+    @Bean(destroyMethod = "shutdownGracefully")
+    @ConditionalOnProperty(name = "sms.http.event-loop-threads")
+    public NioEventLoopGroup smsEventLoopGroup() {
+        return new NioEventLoopGroup(smsServerConfig.getHttp().getEventLoopThreads());
+    }
 
-                .httpClient(HttpClient.createDefault())
-                .serviceVersion(SmsServiceVersion.V2021_03_07)
-                .buildClient();
+    /**
+     * One pooled transport for every send, so connections are reused across requests.
+     */
+    @Bean
+    public HttpClient smsHttpClient(ConnectionProvider smsConnectionProvider,
+                                    ObjectProvider<NioEventLoopGroup> smsEventLoopGroup) {
+        SmsServerConfig.Http http = smsServerConfig.getHttp();
+        NettyAsyncHttpClientBuilder builder = new NettyAsyncHttpClientBuilder()
+                .connectionProvider(smsConnectionProvider)
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .responseTimeout(http.getResponseTimeout());
+        smsEventLoopGroup.ifAvailable(builder::eventLoopGroup);
+        return builder.build();
     }
 
     @Bean
-    public SmsAsyncClient smsAsyncClient() {
+    public SmsAsyncClient smsAsyncClient(HttpClient smsHttpClient) {
         return new SmsClientBuilder()
                 // Key credential works below
                 .endpoint(smsServerConfig.getEndpoint())
@@ -56,7 +81,9 @@ public class SmsClientConfig {
                 //.endpoint(smsServerConfig.getEndpoint())
                 //.credential(new DefaultAzureCredentialBuilder().build())
 
-                .httpClient(HttpClient.createDefault())
+                .httpClient(smsHttpClient)
+                // SmsResilience retries only what is safe to repeat, so the SDK must not retry underneath it
+                .retryPolicy(new RetryPolicy(new FixedDelay(0, Duration.ZERO)))
                 .serviceVersion(SmsServiceVersion.V2021_03_07)
                 .buildAsyncClient();
     }
@@ -0,0 +1,18 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties("sms.idempotency")
+@Getter
+@Setter
+public class SmsIdempotencyConfig {
+    // How long a send is remembered; repeats within this window get the original result
+    private Duration ttl = Duration.ofMinutes(10);
+    private long maxEntries = 100_000;
+}
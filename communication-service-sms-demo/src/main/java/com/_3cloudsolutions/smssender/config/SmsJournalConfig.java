@@ -0,0 +1,18 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties("sms.journal")
+@Getter
+@Setter
+public class SmsJournalConfig {
+    private String path;
+    private int capacity = 64 * 1024 * 1024;
+    private int dispatchBatchSize = 500;
+    // msync on every append survives an OS crash, not just a process crash, at the cost of latency
+    private boolean syncOnAppend = false;
+}
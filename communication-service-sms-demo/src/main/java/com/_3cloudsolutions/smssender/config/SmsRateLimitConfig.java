@@ -0,0 +1,26 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties("sms.rate-limit")
+@Getter
+@Setter
+public class SmsRateLimitConfig {
+    // Toll-free numbers are limited to 200 messages a minute
+    private double permitsPerSecond = 3;
+    private double minPermitsPerSecond = 0.5;
+    private double burst = 10;
+    // Single sends are rejected instead of waiting longer than this; group, bulk and queued sends always wait
+    private Duration maxWait = Duration.ofSeconds(5);
+    // On throttling the rate is multiplied by this, at most once per cool-down
+    private double backoffFactor = 0.5;
+    private Duration backoffCoolDown = Duration.ofSeconds(1);
+    // Fraction of permitsPerSecond regained per successful send
+    private double recoveryStep = 0.01;
+}
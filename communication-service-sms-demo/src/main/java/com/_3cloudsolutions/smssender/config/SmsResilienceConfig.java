@@ -0,0 +1,38 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties("sms.resilience")
+@Getter
+@Setter
+public class SmsResilienceConfig {
+    // Longest a single provider call may take before it is cancelled
+    private Duration attemptTimeout = Duration.ofSeconds(10);
+    // Budget for the whole send, retries included
+    private Duration deadline = Duration.ofSeconds(20);
+    // Retries are only made when the provider certainly did not accept the message
+    private int maxRetries = 2;
+    private Duration retryBackoff = Duration.ofMillis(200);
+    private Duration maxRetryBackoff = Duration.ofSeconds(2);
+    private double retryJitter = 0.5;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        // Opens when at least this share of the last windowSize calls failed
+        private double failureRateThreshold = 0.5;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        // How long to fail fast before letting probe calls through
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+}
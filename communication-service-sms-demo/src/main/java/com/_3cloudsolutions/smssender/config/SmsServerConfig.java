@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties("sms")
 @Getter
@@ -14,4 +16,30 @@ public class SmsServerConfig {
     private String azureKeyCredential;
     private String connectionString;
     private String fromNumber;
+    // Azure Communication Services accepts at most 100 recipients per send
+    private int batchSize = 100;
+    private int bulkConcurrency = 4;
+    // Templated sends group recipients with identical text across this many rows at a time
+    private int templateGroupWindow = 10_000;
+    private Http http = new Http();
+
+    /**
+     * Settings for the HTTP transport used by SmsAsyncClient.
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+        // How long an idle pooled connection is kept alive before it is closed
+        private Duration keepAlive = Duration.ofSeconds(60);
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        // Left unset, reactor-netty's shared event loop with one thread per core is used
+        private Integer eventLoopThreads;
+    }
 }
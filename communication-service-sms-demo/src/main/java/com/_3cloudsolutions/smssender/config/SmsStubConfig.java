@@ -0,0 +1,34 @@
+package com._3cloudsolutions.smssender.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties("sms.stub")
+@Getter
+@Setter
+public class SmsStubConfig {
+    // Rate at which the stub accepts recipients before answering 429, like a real sending number
+    private double permitsPerSecond = 5;
+    private double burst = 10;
+
+    private Faults faults = new Faults();
+
+    /**
+     * Failures the stub injects so timeouts, retries and the circuit breaker can be exercised locally.
+     */
+    @Getter
+    @Setter
+    public static class Faults {
+        // Share of calls answered with errorStatus instead of being sent
+        private double errorRate = 0;
+        private int errorStatus = 503;
+        // Added to every call; latency up to latency + latencyJitter
+        private Duration latency = Duration.ZERO;
+        private Duration latencyJitter = Duration.ZERO;
+    }
+}
@@ -0,0 +1,148 @@
+package com._3cloudsolutions.smssender.controller;
+
+import com._3cloudsolutions.smssender.service.DeliveryStatusIndex;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event Grid webhook for SMS delivery reports, plus lookups against the resulting status index.
+ * Subscribe it to Microsoft.Communication.SMSDeliveryReportReceived events on the Communication Services resource.
+ */
+@RestController
+@RequestMapping("/deliveryreports")
+public class DeliveryReportController {
+
+    private static final String DELIVERY_REPORT_EVENT = "Microsoft.Communication.SMSDeliveryReportReceived";
+    private static final String VALIDATION_EVENT = "Microsoft.EventGrid.SubscriptionValidationEvent";
+    private static final String DELIVERED = "Delivered";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DeliveryStatusIndex deliveryStatusIndex;
+
+    public DeliveryReportController(DeliveryStatusIndex deliveryStatusIndex) {
+        this.deliveryStatusIndex = deliveryStatusIndex;
+    }
+
+    /**
+     * Accepts a batch of events, reading one event at a time rather than binding the whole batch.
+     * Also answers Event Grid's subscription validation handshake.
+     */
+    @PostMapping
+    ResponseEntity<?> ingest(InputStream body) throws IOException {
+        int accepted = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token == JsonToken.START_OBJECT) {
+                JsonNode event = objectMapper.readTree(parser);
+                String eventType = event.path("eventType").asText(event.path("type").asText());
+                JsonNode data = event.path("data");
+
+                if (VALIDATION_EVENT.equals(eventType)) {
+                    JSONObject response = new JSONObject();
+                    response.put("validationResponse", field(data, "ValidationCode"));
+                    return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+                }
+                if (DELIVERY_REPORT_EVENT.equals(eventType)) {
+                    String messageId = field(data, "MessageId");
+                    String status = field(data, "DeliveryStatus");
+                    if (messageId != null && status != null) {
+                        deliveryStatusIndex.update(messageId, status,
+                                timestamp(field(data, "ReceivedTimestamp"), event.path("eventTime").asText(null)));
+                        accepted++;
+                    }
+                }
+                token = parser.nextToken();
+            }
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("accepted", accepted);
+        return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+    }
+
+    @GetMapping("/{messageId}")
+    ResponseEntity<?> getStatus(@PathVariable String messageId) {
+        DeliveryStatusIndex.Status status = deliveryStatusIndex.get(messageId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        JSONObject response = new JSONObject();
+        response.put("messageId", messageId);
+        response.put("status", status.getStatus());
+        response.put("receivedAt", Instant.ofEpochMilli(status.getTimestampMillis()).toString());
+        return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+    }
+
+    /**
+     * Delivery counts and delivered rate per bucket over the last windowMinutes.
+     */
+    @GetMapping("/rates")
+    ResponseEntity<?> getRates(@RequestParam(name = "windowMinutes", defaultValue = "60") long windowMinutes,
+                               @RequestParam(name = "bucketMinutes", defaultValue = "5") long bucketMinutes) {
+        long bucketMillis = TimeUnit.MINUTES.toMillis(Math.max(1, bucketMinutes));
+        long to = System.currentTimeMillis();
+        long from = to - TimeUnit.MINUTES.toMillis(Math.max(1, windowMinutes));
+        List<Map<String, Long>> counts = deliveryStatusIndex.countByStatus(from, to, bucketMillis);
+
+        JSONArray buckets = new JSONArray();
+        for (int i = 0; i < counts.size(); i++) {
+            Map<String, Long> byStatus = counts.get(i);
+            long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+            JSONObject bucket = new JSONObject();
+            bucket.put("start", Instant.ofEpochMilli(from + i * bucketMillis).toString());
+            bucket.put("total", total);
+            bucket.put("statuses", byStatus);
+            bucket.put("deliveryRate", total == 0 ? null : (double) byStatus.getOrDefault(DELIVERED, 0L) / total);
+            buckets.add(bucket);
+        }
+        JSONObject response = new JSONObject();
+        response.put("tracked", deliveryStatusIndex.size());
+        response.put("buckets", buckets);
+        return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+    }
+
+    // The Event Grid schema uses PascalCase data fields, the CloudEvents schema camelCase
+    private static String field(JsonNode data, String name) {
+        JsonNode value = data.get(name);
+        if (value == null) {
+            value = data.get(Character.toLowerCase(name.charAt(0)) + name.substring(1));
+        }
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static long timestamp(String... candidates) {
+        for (String candidate : candidates) {
+            if (candidate != null) {
+                try {
+                    return OffsetDateTime.parse(candidate).toInstant().toEpochMilli();
+                } catch (DateTimeParseException ignored) {
+                }
+            }
+        }
+        return System.currentTimeMillis();
+    }
+}
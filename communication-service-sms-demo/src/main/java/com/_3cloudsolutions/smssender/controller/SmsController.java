@@ -1,41 +1,73 @@
 package com._3cloudsolutions.smssender.controller;
 
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com._3cloudsolutions.smssender.service.MessageTemplate;
+import com._3cloudsolutions.smssender.service.PhoneNumberNormalizer;
+import com._3cloudsolutions.smssender.service.SmsCircuitOpenException;
+import com._3cloudsolutions.smssender.service.SmsIdempotencyConflictException;
+import com._3cloudsolutions.smssender.service.SmsIdempotencyService;
+import com._3cloudsolutions.smssender.service.SmsJournal;
 import com._3cloudsolutions.smssender.service.SmsService;
+import com._3cloudsolutions.smssender.service.SmsThrottledException;
+import com._3cloudsolutions.smssender.service.SmsTimeoutException;
+import com._3cloudsolutions.smssender.service.SmsTransportMetrics;
 import com.azure.communication.sms.models.SmsSendResult;
+import lombok.extern.slf4j.Slf4j;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
+
+@Slf4j
 @CrossOrigin
 @RestController
 public class SmsController {
-    // TODO: validate group SMS numbers
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     private SmsService smsService;
+    private SmsIdempotencyService smsIdempotencyService;
+    private SmsJournal smsJournal;
+    private SmsTransportMetrics smsTransportMetrics;
 
-    public SmsController(SmsService smsService) {
+    public SmsController(SmsService smsService, SmsIdempotencyService smsIdempotencyService, SmsJournal smsJournal,
+                         SmsTransportMetrics smsTransportMetrics) {
         this.smsService = smsService;
+        this.smsIdempotencyService = smsIdempotencyService;
+        this.smsJournal = smsJournal;
+        this.smsTransportMetrics = smsTransportMetrics;
     }
 
     @GetMapping("/sms")
     Mono<ResponseEntity<?>> sendSms(@RequestParam(name = "toAddress") String toAddress,
-                                    @RequestParam(name = "message") String message) {
+                                    @RequestParam(name = "message") String message,
+                                    @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         JSONObject response = new JSONObject();
 
         try {
-            toAddress = validateUSPhoneNumber(toAddress);
+            toAddress = normalizePhoneNumber(toAddress);
             if (toAddress.isBlank()) {
                 response.put("status", "failed");
                 response.put("cause", "invalid phone number");
                 return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString()));
             }
 
-            SmsSendResult smsSendResult = smsService.sendText(toAddress, message);
+            SmsSendResult smsSendResult = smsIdempotencyService.sendText(idempotencyKey, toAddress, message);
             if (smsSendResult.isSuccessful()) {
                 response.put("status", "success");
                 return Mono.just(ResponseEntity.status(HttpStatus.OK).body(response.toJSONString()));
@@ -46,57 +78,70 @@ public class SmsController {
             }
 
         } catch (Exception ex) {
-            response.put("status", "error");
-            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response.toJSONString()));
+            return Mono.just(errorResponse(ex));
         }
     }
 
     @GetMapping("/asyncsms")
     Mono<ResponseEntity<?>> sendAsyncSms(@RequestParam(name = "toAddress") String toAddress,
-                                    @RequestParam(name = "message") String message) {
+                                    @RequestParam(name = "message") String message,
+                                    @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String validatedAddress = normalizePhoneNumber(toAddress);
+        if (validatedAddress.isBlank()) {
+            JSONObject response = new JSONObject();
+            response.put("status", "failed");
+            response.put("cause", "invalid phone number");
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString()));
+        }
+
+        return smsIdempotencyService.sendAsyncText(idempotencyKey, validatedAddress, message)
+                .map(this::toResponse)
+                .onErrorResume(ex -> Mono.just(errorResponse(ex)));
+    }
+
+    /**
+     * Accept-then-dispatch: the message is written to the local journal and sent in the background.
+     */
+    @GetMapping("/queuedsms")
+    ResponseEntity<?> queueSms(@RequestParam(name = "toAddress") String toAddress,
+                               @RequestParam(name = "message") String message) {
         JSONObject response = new JSONObject();
 
-        toAddress = validateUSPhoneNumber(toAddress);
+        toAddress = normalizePhoneNumber(toAddress);
         if (toAddress.isBlank()) {
             response.put("status", "failed");
             response.put("cause", "invalid phone number");
-            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString()));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString());
         }
 
         try {
-            SmsSendResult smsSendResult = smsService.sendAsyncText(toAddress, message);
-            if (smsSendResult.isSuccessful()) {
-                response.put("status", "success");
-                return Mono.just(ResponseEntity.status(HttpStatus.OK).body(response.toJSONString()));
-            } else {
-                response.put("status", "failed");
-                response.put("cause", smsSendResult.getErrorMessage());
-                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString()));
-            }
-
-        } catch (Exception ex) {
-            response.put("status", "error");
-            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response.toJSONString()));
+            response.put("status", "accepted");
+            response.put("messageId", smsJournal.append(toAddress, message));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response.toJSONString());
+        } catch (IllegalStateException ex) {
+            response.put("status", "failed");
+            response.put("cause", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response.toJSONString());
         }
     }
 
     @GetMapping("/groupsms")
     Mono<ResponseEntity<?>> sendGroupSms(@RequestParam(name = "toAddress") List<String> toAddresses,
                                     @RequestParam(name = "message") String message) {
-        List<String> failed = new ArrayList<>();
-        int failureCount = 0;
+        PhoneNumberNormalizer.Validation validation = PhoneNumberNormalizer.validateAll(toAddresses);
+        List<String> failed = new ArrayList<>(validation.getRejected());
         JSONObject response = new JSONObject();
 
         try {
-            Iterable<SmsSendResult> smsSendResults = smsService.sendGroupText(toAddresses, message);
-            for (SmsSendResult result : smsSendResults ) {
-                if (result.isSuccessful()) {
-                    continue;
-                } else {
-                    failureCount++;
+            if (!validation.getValid().isEmpty()) {
+                Iterable<SmsSendResult> smsSendResults = smsService.sendGroupText(validation.getValid(), message);
+                for (SmsSendResult result : smsSendResults) {
+                    if (!result.isSuccessful()) {
+                        failed.add(result.getTo());
+                    }
                 }
             }
-            if (failureCount == 0) {
+            if (failed.isEmpty()) {
                 response.put("status", "success");
                 return Mono.just(ResponseEntity.status(HttpStatus.OK).body(response.toJSONString()));
             } else {
@@ -110,19 +155,217 @@ public class SmsController {
             }
 
         } catch (Exception ex) {
-            response.put("status", "error");
-            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response.toJSONString()));
+            return Mono.just(errorResponse(ex));
+        }
+    }
+
+    @GetMapping("/asyncgroupsms")
+    Mono<ResponseEntity<?>> sendAsyncGroupSms(@RequestParam(name = "toAddress") List<String> toAddresses,
+                                              @RequestParam(name = "message") String message) {
+        PhoneNumberNormalizer.Validation validation = PhoneNumberNormalizer.validateAll(toAddresses);
+        Flux<String> sendFailures = validation.getValid().isEmpty() ? Flux.empty()
+                : smsService.sendAsyncGroupText(validation.getValid(), message)
+                        .filter(result -> !result.isSuccessful())
+                        .map(SmsSendResult::getTo);
+
+        return Flux.fromIterable(validation.getRejected())
+                .concatWith(sendFailures)
+                .collectList()
+                .map(this::toGroupResponse)
+                .onErrorResume(ex -> Mono.just(errorResponse(ex)));
+    }
+
+    /**
+     * Streams one record per recipient as each batch of the group resolves, followed by a summary record.
+     * Results are written as they arrive and never collected, so the response size does not bound memory.
+     */
+    @GetMapping(value = "/groupsms/stream", produces = APPLICATION_NDJSON_VALUE)
+    Flux<String> streamGroupSms(@RequestParam(name = "toAddress") List<String> toAddresses,
+                                @RequestParam(name = "message") String message) {
+        // Spring MVC writes String elements as-is, so each NDJSON line needs its own terminator
+        return groupRecords(toAddresses, message).map(record -> record + "\n");
+    }
+
+    @GetMapping(value = "/groupsms/stream", produces = TEXT_EVENT_STREAM_VALUE)
+    Flux<String> streamGroupSmsEvents(@RequestParam(name = "toAddress") List<String> toAddresses,
+                                      @RequestParam(name = "message") String message) {
+        return groupRecords(toAddresses, message);
+    }
+
+    private Flux<String> groupRecords(List<String> toAddresses, String message) {
+        return Flux.defer(() -> {
+            PhoneNumberNormalizer.Validation validation = PhoneNumberNormalizer.validateAll(toAddresses);
+            AtomicLong sent = new AtomicLong();
+            AtomicLong failed = new AtomicLong(validation.getRejected().size());
+
+            Flux<String> rejected = Flux.fromIterable(validation.getRejected())
+                    .map(to -> recipientRecord(to, null, "invalid phone number"));
+            Flux<String> results = validation.getValid().isEmpty() ? Flux.empty()
+                    : smsService.sendAsyncGroupText(validation.getValid(), message)
+                            .map(result -> {
+                                (result.isSuccessful() ? sent : failed).incrementAndGet();
+                                return recipientRecord(result.getTo(), result.getMessageId(),
+                                        result.isSuccessful() ? null : result.getErrorMessage());
+                            });
+
+            return rejected.concatWith(results)
+                    .onErrorResume(ex -> {
+                        JSONObject error = new JSONObject();
+                        error.put("status", errorStatus(ex));
+                        return Flux.just(error.toJSONString());
+                    })
+                    .concatWith(Mono.fromSupplier(() -> {
+                        JSONObject summary = new JSONObject();
+                        summary.put("status", failed.get() == 0 ? "success" : "failed");
+                        summary.put("sent", sent.get());
+                        summary.put("failed", failed.get());
+                        return summary.toJSONString();
+                    }));
+        });
+    }
+
+    /**
+     * Accepts a streamed body with one recipient per line (NDJSON, CSV or bare numbers).
+     * The body is read lazily as batches are dispatched, so campaigns of any size use bounded memory.
+     */
+    @PostMapping(value = "/bulksms", consumes = {APPLICATION_NDJSON_VALUE, "text/csv", TEXT_PLAIN_VALUE})
+    Mono<ResponseEntity<?>> sendBulkSms(InputStream body,
+                                        @RequestParam(name = "message", required = false) String message) {
+        Flux<BulkSmsRequest> requests = Flux.using(
+                        () -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                        reader -> Flux.fromStream(reader.lines()),
+                        this::closeQuietly)
+                .filter(line -> !line.isBlank())
+                .map(line -> BulkSmsRequest.parse(line, message))
+                .subscribeOn(Schedulers.boundedElastic());
+
+        return smsService.sendBulkText(requests)
+                .<ResponseEntity<?>>map(summary -> ResponseEntity.status(
+                        summary.getFailed() == 0 ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(summary.toJson()))
+                .onErrorResume(ex -> Mono.just(errorResponse(ex)));
+    }
+
+    /**
+     * Sends a template such as "Hi {{name}}, your code is {{code}}" to every recipient in a streamed data file:
+     * CSV with a header row naming "to" and each placeholder, or NDJSON objects with the same fields.
+     */
+    @PostMapping(value = "/templatesms", consumes = {APPLICATION_NDJSON_VALUE, "text/csv", TEXT_PLAIN_VALUE})
+    Mono<ResponseEntity<?>> sendTemplateSms(InputStream body, @RequestParam(name = "template") String template) {
+        MessageTemplate messageTemplate;
+        try {
+            messageTemplate = MessageTemplate.compile(template);
+        } catch (IllegalArgumentException ex) {
+            return Mono.just(errorResponse(ex));
         }
+        Flux<String> lines = Flux.using(
+                        () -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                        reader -> Flux.fromStream(reader.lines()),
+                        this::closeQuietly)
+                .filter(line -> !line.isBlank())
+                .subscribeOn(Schedulers.boundedElastic());
+
+        return smsService.sendTemplatedText(messageTemplate, lines)
+                .<ResponseEntity<?>>map(summary -> ResponseEntity.status(
+                        summary.getFailed() == 0 ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(summary.toJson()))
+                .onErrorResume(ex -> Mono.just(errorResponse(ex)));
+    }
+
+    @GetMapping("/idempotency")
+    ResponseEntity<?> getIdempotencyStats() {
+        JSONObject response = new JSONObject();
+        response.put("hits", smsIdempotencyService.getHits());
+        response.put("misses", smsIdempotencyService.getMisses());
+        return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+    }
+
+    @GetMapping("/transport")
+    ResponseEntity<?> getTransportStats() {
+        JSONObject response = new JSONObject();
+        response.put("pools", smsTransportMetrics.toJsonArray());
+        return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
     }
 
-    private String validateUSPhoneNumber(String number) {
-        number = number.replaceAll("[^0-9]", "");
-        if (number.length() == 10) {
-            return "+1" + number;
-        } else if (number.length() == 11 && number.charAt(0) == '1') {
-            return "+" + number;
-        } else {
-            return "";
+    private String recipientRecord(String to, String messageId, String error) {
+        JSONObject record = new JSONObject();
+        record.put("to", to);
+        record.put("messageId", messageId);
+        record.put("error", error);
+        return record.toJSONString();
+    }
+
+    private ResponseEntity<?> toResponse(SmsSendResult smsSendResult) {
+        JSONObject response = new JSONObject();
+        if (smsSendResult.isSuccessful()) {
+            response.put("status", "success");
+            return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
         }
+        response.put("status", "failed");
+        response.put("cause", smsSendResult.getErrorMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString());
+    }
+
+    private ResponseEntity<?> toGroupResponse(List<String> failed) {
+        JSONObject response = new JSONObject();
+        if (failed.isEmpty()) {
+            response.put("status", "success");
+            return ResponseEntity.status(HttpStatus.OK).body(response.toJSONString());
+        }
+        response.put("status", "failed");
+        JSONArray array = new JSONArray();
+        array.addAll(failed);
+        response.put("failedAddresses", array);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString());
+    }
+
+    private ResponseEntity<?> errorResponse(Throwable ex) {
+        JSONObject response = new JSONObject();
+        response.put("status", errorStatus(ex));
+        if (ex instanceof SmsThrottledException) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response.toJSONString());
+        }
+        if (ex instanceof SmsCircuitOpenException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response.toJSONString());
+        }
+        if (ex instanceof SmsTimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(response.toJSONString());
+        }
+        if (ex instanceof SmsIdempotencyConflictException) {
+            response.put("cause", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response.toJSONString());
+        }
+        if (ex instanceof IllegalArgumentException) {
+            response.put("cause", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response.toJSONString());
+        }
+        log.warn("SMS send failed", ex);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response.toJSONString());
+    }
+
+    private String errorStatus(Throwable ex) {
+        if (ex instanceof SmsThrottledException) {
+            return "throttled";
+        }
+        if (ex instanceof SmsCircuitOpenException) {
+            return "unavailable";
+        }
+        if (ex instanceof SmsTimeoutException) {
+            return "timeout";
+        }
+        if (ex instanceof SmsIdempotencyConflictException || ex instanceof IllegalArgumentException) {
+            return "failed";
+        }
+        return "error";
+    }
+
+    private void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private String normalizePhoneNumber(String number) {
+        String normalized = PhoneNumberNormalizer.normalize(number);
+        return normalized == null ? "" : normalized;
     }
 }
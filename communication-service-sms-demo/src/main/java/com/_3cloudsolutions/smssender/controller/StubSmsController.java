@@ -0,0 +1,105 @@
+package com._3cloudsolutions.smssender.controller;
+
+import com._3cloudsolutions.smssender.config.SmsStubConfig;
+import com._3cloudsolutions.smssender.service.TokenBucket;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Offline stand-in for the Communication Services SMS REST API, enabled by the "stub" profile.
+ * Point sms.endpoint at http://localhost:8080/stub to send without Azure. Recipients beyond the
+ * configured rate are answered with 429 so throttling can be exercised locally, and sms.stub.faults adds
+ * latency and failed calls. A group larger than the burst is held for the time its extra recipients take
+ * at the configured rate instead of always being throttled.
+ */
+@Profile("stub")
+@RestController
+@RequestMapping("/stub")
+public class StubSmsController {
+
+    private TokenBucket tokenBucket;
+    private SmsStubConfig smsStubConfig;
+    private SmsStubConfig.Faults faults;
+
+    public StubSmsController(SmsStubConfig smsStubConfig) {
+        this.smsStubConfig = smsStubConfig;
+        this.faults = smsStubConfig.getFaults();
+        this.tokenBucket = new TokenBucket(smsStubConfig.getPermitsPerSecond(), smsStubConfig.getBurst());
+    }
+
+    @PostMapping(value = "/sms", produces = APPLICATION_JSON_VALUE)
+    ResponseEntity<String> send(@RequestBody Map<String, Object> request) throws InterruptedException {
+        injectLatency();
+        if (ThreadLocalRandom.current().nextDouble() < faults.getErrorRate()) {
+            return error(HttpStatus.valueOf(faults.getErrorStatus()), "InjectedFault", "fault injected by the stub");
+        }
+
+        List<?> recipients = (List<?>) request.get("smsRecipients");
+        long wait = tokenBucket.reserve(recipients.size(), maxWaitNanos(recipients.size()));
+        if (wait < 0) {
+            return error(HttpStatus.TOO_MANY_REQUESTS, "TooManyRequests", "sending number is throttled");
+        }
+        TimeUnit.NANOSECONDS.sleep(wait);
+
+        JSONArray value = new JSONArray();
+        for (Object recipient : recipients) {
+            JSONObject result = new JSONObject();
+            result.put("to", ((Map<?, ?>) recipient).get("to"));
+            result.put("messageId", "Outgoing_" + UUID.randomUUID());
+            result.put("httpStatusCode", HttpStatus.ACCEPTED.value());
+            result.put("repeatabilityResult", "accepted");
+            result.put("successful", true);
+            value.add(result);
+        }
+        JSONObject response = new JSONObject();
+        response.put("value", value);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response.toJSONString());
+    }
+
+    /**
+     * How long a request may wait for its permits: nothing within the burst, and for a larger group only the
+     * time the recipients beyond the burst take, so it succeeds once the bucket is full.
+     */
+    private long maxWaitNanos(int permits) {
+        double excess = Math.max(0, permits - smsStubConfig.getBurst());
+        return (long) (excess * TimeUnit.SECONDS.toNanos(1) / smsStubConfig.getPermitsPerSecond());
+    }
+
+    private void injectLatency() throws InterruptedException {
+        long latency = faults.getLatency().toMillis();
+        long jitter = faults.getLatencyJitter().toMillis();
+        if (jitter > 0) {
+            latency += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    private ResponseEntity<String> error(HttpStatus status, String code, String message) {
+        JSONObject error = new JSONObject();
+        error.put("code", code);
+        error.put("message", message);
+        JSONObject response = new JSONObject();
+        response.put("error", error);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.toJSONString());
+    }
+}
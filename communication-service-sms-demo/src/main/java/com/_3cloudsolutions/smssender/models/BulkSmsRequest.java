@@ -0,0 +1,49 @@
+package com._3cloudsolutions.smssender.models;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A single line of a bulk send. Lines are either NDJSON ({"to": "...", "message": "..."}),
+ * CSV (to,message) or a bare recipient that falls back to the request's default message. A line that is not
+ * valid JSON comes back as itself with no message, so it is rejected like any recipient without one rather
+ * than failing the rest of the send.
+ */
+@Getter
+@AllArgsConstructor
+public class BulkSmsRequest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String to;
+    private String message;
+
+    public static BulkSmsRequest parse(String line, String defaultMessage) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                JsonNode node = objectMapper.readTree(trimmed);
+                return new BulkSmsRequest(node.path("to").asText(""),
+                        node.hasNonNull("message") ? node.get("message").asText() : defaultMessage);
+            } catch (JsonProcessingException ex) {
+                return new BulkSmsRequest(trimmed, null);
+            }
+        }
+
+        int comma = trimmed.indexOf(',');
+        if (comma < 0) {
+            return new BulkSmsRequest(trimmed, defaultMessage);
+        }
+        return new BulkSmsRequest(unquote(trimmed.substring(0, comma)), unquote(trimmed.substring(comma + 1)));
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+}
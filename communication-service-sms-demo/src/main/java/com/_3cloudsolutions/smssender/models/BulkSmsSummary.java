@@ -0,0 +1,57 @@
+package com._3cloudsolutions.smssender.models;
+
+import com.azure.communication.sms.models.SmsSendResult;
+import lombok.Getter;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+
+/**
+ * Running totals of a bulk send. Only counts and failed recipients are kept, never the sent messages.
+ * Rejected recipients are recorded while the input is still being read, so updates are synchronized.
+ */
+@Getter
+public class BulkSmsSummary {
+    private long batches;
+    private long sent;
+    private long failed;
+    private final JSONArray failedAddresses = new JSONArray();
+
+    public synchronized BulkSmsSummary add(Iterable<SmsSendResult> batchResults) {
+        batches++;
+        for (SmsSendResult result : batchResults) {
+            if (result.isSuccessful()) {
+                sent++;
+            } else {
+                failed++;
+                failedAddresses.add(result.getTo());
+            }
+        }
+        return this;
+    }
+
+    public synchronized void reject(String to) {
+        failed++;
+        failedAddresses.add(to);
+    }
+
+    /**
+     * Records a batch the provider could not be reached for, such as a timeout or an open circuit.
+     */
+    public synchronized void fail(Iterable<String> batch) {
+        batches++;
+        for (String to : batch) {
+            failed++;
+            failedAddresses.add(to);
+        }
+    }
+
+    public synchronized String toJson() {
+        JSONObject json = new JSONObject();
+        json.put("status", failed == 0 ? "success" : "failed");
+        json.put("batches", batches);
+        json.put("sent", sent);
+        json.put("failed", failed);
+        json.put("failedAddresses", failedAddresses);
+        return json.toJSONString();
+    }
+}
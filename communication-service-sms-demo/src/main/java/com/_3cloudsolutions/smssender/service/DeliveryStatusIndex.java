@@ -0,0 +1,230 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.DeliveryReportConfig;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded index from message id to its latest delivery status, kept in primitive arrays.
+ *
+ * Message ids are stored as 64-bit fingerprints and statuses as one-byte codes, so an entry costs a few dozen
+ * bytes and no objects. Entries live in a ring in arrival order and the oldest is evicted once the ring is
+ * full. A linear-probing table from fingerprint to ring slot gives constant-time lookups; it uses
+ * backward-shift deletion so evictions never leave tombstones behind.
+ */
+@Component
+public class DeliveryStatusIndex {
+
+    private final int capacity;
+    private final long[] fingerprints;
+    private final long[] timestamps;
+    private final byte[] statuses;
+    private final long[] tableKeys;
+    private final int[] tableSlots;
+    private final int tableMask;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Byte> statusCodes = new ConcurrentHashMap<>();
+    private final List<String> statusNames = new CopyOnWriteArrayList<>();
+    private int next;
+    private int size;
+
+    @Autowired
+    public DeliveryStatusIndex(DeliveryReportConfig deliveryReportConfig) {
+        this(deliveryReportConfig.getCapacity());
+    }
+
+    DeliveryStatusIndex(int capacity) {
+        this.capacity = capacity;
+        this.fingerprints = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.statuses = new byte[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        this.tableKeys = new long[tableSize];
+        this.tableSlots = new int[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Records the status of a message, replacing any earlier status unless it is newer than this one.
+     */
+    public void update(String messageId, String status, long timestampMillis) {
+        long fingerprint = fingerprint(messageId);
+        byte code = statusCode(status);
+        lock.writeLock().lock();
+        try {
+            int index = find(fingerprint);
+            if (tableKeys[index] == fingerprint) {
+                int slot = tableSlots[index];
+                if (timestamps[slot] <= timestampMillis) {
+                    timestamps[slot] = timestampMillis;
+                    statuses[slot] = code;
+                }
+                return;
+            }
+
+            int slot = next;
+            if (size == capacity) {
+                remove(fingerprints[slot]);
+                index = find(fingerprint);
+            } else {
+                size++;
+            }
+            fingerprints[slot] = fingerprint;
+            timestamps[slot] = timestampMillis;
+            statuses[slot] = code;
+            tableKeys[index] = fingerprint;
+            tableSlots[index] = slot;
+            next = (slot + 1) % capacity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the latest status and its timestamp, or null if the message is unknown or was evicted
+     */
+    public Status get(String messageId) {
+        long fingerprint = fingerprint(messageId);
+        lock.readLock().lock();
+        try {
+            int index = find(fingerprint);
+            if (tableKeys[index] != fingerprint) {
+                return null;
+            }
+            int slot = tableSlots[index];
+            return new Status(statusName(statuses[slot]), timestamps[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts statuses per bucket for entries with a timestamp in [fromMillis, toMillis).
+     * @return one map of status to count per bucket, oldest bucket first
+     */
+    public List<Map<String, Long>> countByStatus(long fromMillis, long toMillis, long bucketMillis) {
+        int buckets = (int) Math.max(1, (toMillis - fromMillis + bucketMillis - 1) / bucketMillis);
+        long[][] counts = new long[buckets][];
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < size; slot++) {
+                long timestamp = timestamps[slot];
+                if (timestamp >= fromMillis && timestamp < toMillis) {
+                    int bucket = (int) ((timestamp - fromMillis) / bucketMillis);
+                    if (counts[bucket] == null) {
+                        counts[bucket] = new long[Byte.MAX_VALUE + 1];
+                    }
+                    counts[bucket][statuses[slot]]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map<String, Long>> result = new ArrayList<>(buckets);
+        for (long[] bucket : counts) {
+            Map<String, Long> byStatus = new TreeMap<>();
+            if (bucket != null) {
+                for (int code = 0; code < bucket.length; code++) {
+                    if (bucket[code] > 0) {
+                        byStatus.put(statusName((byte) code), bucket[code]);
+                    }
+                }
+            }
+            result.add(byStatus);
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(long fingerprint) {
+        int index = (int) fingerprint & tableMask;
+        while (tableKeys[index] != 0 && tableKeys[index] != fingerprint) {
+            index = (index + 1) & tableMask;
+        }
+        return index;
+    }
+
+    private void remove(long fingerprint) {
+        int hole = find(fingerprint);
+        if (tableKeys[hole] != fingerprint) {
+            return;
+        }
+        tableKeys[hole] = 0;
+        int index = (hole + 1) & tableMask;
+        while (tableKeys[index] != 0) {
+            int home = (int) tableKeys[index] & tableMask;
+            // Move the entry back into the hole unless its home lies cyclically in (hole, index]
+            if (((index - home) & tableMask) >= ((index - hole) & tableMask)) {
+                tableKeys[hole] = tableKeys[index];
+                tableSlots[hole] = tableSlots[index];
+                tableKeys[index] = 0;
+                hole = index;
+            }
+            index = (index + 1) & tableMask;
+        }
+    }
+
+    private byte statusCode(String status) {
+        Byte code = statusCodes.get(status);
+        if (code != null) {
+            return code;
+        }
+        synchronized (statusNames) {
+            return statusCodes.computeIfAbsent(status, name -> {
+                if (statusNames.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("too many distinct delivery statuses");
+                }
+                statusNames.add(name);
+                return (byte) (statusNames.size() - 1);
+            });
+        }
+    }
+
+    private String statusName(byte code) {
+        return statusNames.get(code);
+    }
+
+    /**
+     * 64-bit FNV-1a over the id's characters followed by a murmur finalizer. Zero marks an empty table
+     * entry, so it is never returned.
+     */
+    static long fingerprint(String messageId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < messageId.length(); i++) {
+            hash ^= messageId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Status {
+        private String status;
+        private long timestampMillis;
+    }
+}
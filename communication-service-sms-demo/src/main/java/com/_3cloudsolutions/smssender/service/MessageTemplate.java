@@ -0,0 +1,93 @@
+package com._3cloudsolutions.smssender.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message with {{placeholders}}, compiled once into a render plan: the literal text between placeholders
+ * and, for each placeholder, the index of the value that fills it. Rendering is then a straight walk over
+ * the plan into the caller's buffer, with no parsing or lookups per recipient.
+ */
+public class MessageTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final int[] slots;
+    private final List<String> fields;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, int[] slots, List<String> fields) {
+        this.literals = literals;
+        this.slots = slots;
+        this.fields = fields;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = template.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            int close = template.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("unclosed placeholder at " + open + " in template");
+            }
+            String field = template.substring(open + OPEN.length(), close).trim();
+            if (field.isEmpty()) {
+                throw new IllegalArgumentException("empty placeholder at " + open + " in template");
+            }
+            int slot = fields.indexOf(field);
+            if (slot < 0) {
+                slot = fields.size();
+                fields.add(field);
+            }
+            literals.add(template.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+
+        return new MessageTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), List.copyOf(fields));
+    }
+
+    /**
+     * Distinct placeholder names in order of first appearance. render expects its values in this order.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Replaces the contents of out with the template filled from values. Missing values render as empty.
+     * @return false if any placeholder had no value, so callers can reject the recipient
+     */
+    public boolean render(String[] values, StringBuilder out) {
+        out.setLength(0);
+        out.ensureCapacity(literalLength + 16 * slots.length);
+        boolean complete = true;
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String value = values[slots[i]];
+            if (value != null) {
+                out.append(value);
+            } else {
+                complete = false;
+            }
+        }
+        out.append(literals[slots.length]);
+        return complete;
+    }
+}
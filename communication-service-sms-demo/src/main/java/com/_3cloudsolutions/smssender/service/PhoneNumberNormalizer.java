@@ -0,0 +1,98 @@
+package com._3cloudsolutions.smssender.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalizes phone numbers to E.164 in a single pass over the characters, without regular expressions.
+ * Digits are accumulated into a long, so the only allocation is the returned string, and none at all
+ * when the input is already in E.164 form.
+ */
+public final class PhoneNumberNormalizer {
+
+    private static final int MAX_DIGITS = 15;
+    private static final int MIN_INTERNATIONAL_DIGITS = 8;
+    private static final int US_DIGITS = 10;
+
+    private PhoneNumberNormalizer() {
+    }
+
+    /**
+     * Numbers starting with '+' are read as international; anything else as a US number with or without
+     * the leading 1. Spaces, dots, dashes and parentheses are ignored; any other character is rejected.
+     * @return the E.164 form of number, or null if it is not a valid number
+     */
+    public static String normalize(String number) {
+        if (number == null) {
+            return null;
+        }
+        int length = number.length();
+        int start = 0;
+        while (start < length && number.charAt(start) == ' ') {
+            start++;
+        }
+        boolean international = start < length && number.charAt(start) == '+';
+        boolean canonical = international && start == 0;
+
+        long value = 0;
+        int digits = 0;
+        boolean leadingZero = false;
+        for (int i = international ? start + 1 : start; i < length; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return null;
+                }
+                leadingZero |= digits == 1 && c == '0';
+                value = value * 10 + (c - '0');
+            } else if (c == ' ' || c == '-' || c == '.' || c == '(' || c == ')') {
+                canonical = false;
+            } else {
+                return null;
+            }
+        }
+
+        if (international) {
+            if (digits < MIN_INTERNATIONAL_DIGITS || leadingZero) {
+                return null;
+            }
+            return canonical ? number : "+" + value;
+        }
+        if (digits == US_DIGITS + 1 && value / 10_000_000_000L == 1) {
+            value -= 10_000_000_000L;
+            digits = US_DIGITS;
+        }
+        // North American area codes never start with 0 or 1
+        if (digits != US_DIGITS || value < 2_000_000_000L) {
+            return null;
+        }
+        return "+1" + value;
+    }
+
+    /**
+     * Normalizes every number in one pass, keeping the original text of each rejected number.
+     */
+    public static Validation validateAll(List<String> numbers) {
+        List<String> valid = new ArrayList<>(numbers.size());
+        List<String> rejected = new ArrayList<>();
+        for (String number : numbers) {
+            String normalized = normalize(number);
+            if (normalized == null) {
+                rejected.add(number);
+            } else {
+                valid.add(normalized);
+            }
+        }
+        return new Validation(valid, rejected);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Validation {
+        private List<String> valid;
+        private List<String> rejected;
+    }
+}
@@ -0,0 +1,129 @@
+package com._3cloudsolutions.smssender.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Count-based circuit breaker. While closed it tracks the outcome of the last windowSize calls and opens once
+ * the failure rate reaches the threshold. While open every call is refused until openDuration has passed,
+ * after which a few probe calls are let through: if they all succeed the breaker closes, and any failure
+ * opens it again. Calls are far slower than the bookkeeping, so a monitor is cheaper here than being clever.
+ */
+public class SmsCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Consumer<State> onTransition;
+
+    private final boolean[] window;
+    private int position;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesLeft;
+    private int probeSuccesses;
+
+    public SmsCircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, long openNanos,
+                             int halfOpenCalls, Consumer<State> onTransition) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.onTransition = onTransition;
+    }
+
+    /**
+     * @return true if the call may go ahead, in which case exactly one of onSuccess, onFailure or release must follow
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            probesLeft = halfOpenCalls;
+            probeSuccesses = 0;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesLeft == 0) {
+                return false;
+            }
+            probesLeft--;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probeSuccesses >= halfOpenCalls) {
+                clearWindow();
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Returns a permit whose call was abandoned without an outcome, so an unanswered probe cannot wedge the
+     * breaker half-open.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesLeft < halfOpenCalls - probeSuccesses) {
+            probesLeft++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failed;
+        if (failed) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        clearWindow();
+        transition(State.OPEN);
+    }
+
+    private void clearWindow() {
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    private void transition(State next) {
+        state = next;
+        onTransition.accept(next);
+    }
+}
@@ -0,0 +1,11 @@
+package com._3cloudsolutions.smssender.service;
+
+/**
+ * Thrown without calling the provider while the circuit breaker is open.
+ */
+public class SmsCircuitOpenException extends RuntimeException {
+
+    public SmsCircuitOpenException() {
+        super("SMS provider circuit is open");
+    }
+}
@@ -0,0 +1,11 @@
+package com._3cloudsolutions.smssender.service;
+
+/**
+ * Thrown when an idempotency key is reused for a different recipient or message.
+ */
+public class SmsIdempotencyConflictException extends RuntimeException {
+
+    public SmsIdempotencyConflictException() {
+        super("idempotency key was already used for a different message");
+    }
+}
@@ -0,0 +1,155 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsIdempotencyConfig;
+import com.azure.communication.sms.models.SmsSendResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Suppresses duplicate single sends. Sends are keyed by the caller's idempotency key, or by a hash of
+ * recipient and message when no key is given. A repeat within the TTL gets the original result, and
+ * duplicates arriving while the first send is still in flight share it instead of sending again.
+ * A key reused for a different recipient or message is rejected with SmsIdempotencyConflictException.
+ * Only successful sends are remembered, so a failed send can be retried.
+ */
+@Service
+public class SmsIdempotencyService {
+
+    private SmsService smsService;
+    private final ConcurrentMap<String, Send> sends;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public SmsIdempotencyService(SmsService smsService, SmsIdempotencyConfig smsIdempotencyConfig,
+                                 MeterRegistry meterRegistry) {
+        this(smsService, smsIdempotencyConfig, meterRegistry, Ticker.systemTicker());
+    }
+
+    SmsIdempotencyService(SmsService smsService, SmsIdempotencyConfig smsIdempotencyConfig,
+                          MeterRegistry meterRegistry, Ticker ticker) {
+        this.smsService = smsService;
+        Cache<String, Send> cache = Caffeine.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(smsIdempotencyConfig.getTtl())
+                .maximumSize(smsIdempotencyConfig.getMaxEntries())
+                .build();
+        this.sends = cache.asMap();
+
+        FunctionCounter.builder("sms.idempotency.requests", hits, LongAdder::sum).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("sms.idempotency.requests", misses, LongAdder::sum).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("sms.idempotency.entries", sends, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    public SmsSendResult sendText(String idempotencyKey, String to, String message) {
+        try {
+            return send(idempotencyKey, to, message,
+                    () -> CompletableFuture.completedFuture(smsService.sendText(to, message))).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * A subscriber that cancels, such as a client that disconnects or times out, only stops waiting. The send
+     * carries on, and the other waiters and later retries with the same key still get its result.
+     */
+    public Mono<SmsSendResult> sendAsyncText(String idempotencyKey, String to, String message) {
+        return Mono.defer(() -> Mono.fromFuture(send(idempotencyKey, to, message,
+                () -> smsService.sendAsyncText(to, message).toFuture()), true));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private CompletableFuture<SmsSendResult> send(String idempotencyKey, String to, String message,
+                                                  Supplier<CompletableFuture<SmsSendResult>> sender) {
+        String requestHash = hash(to, message);
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? "key:" + idempotencyKey : "hash:" + requestHash;
+        CompletableFuture<SmsSendResult> pending = new CompletableFuture<>();
+        Send send = new Send(requestHash, pending);
+        Send existing = sends.putIfAbsent(key, send);
+        if (existing != null) {
+            if (!existing.requestHash.equals(requestHash)) {
+                throw new SmsIdempotencyConflictException();
+            }
+            hits.increment();
+            return existing.result;
+        }
+        misses.increment();
+        // Nothing should cancel the shared future, but if something does, the key must not keep serving it
+        pending.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                sends.remove(key, send);
+            }
+        });
+
+        CompletableFuture<SmsSendResult> sent;
+        try {
+            sent = sender.get();
+        } catch (RuntimeException ex) {
+            sent = CompletableFuture.failedFuture(ex);
+        }
+        sent.whenComplete((result, error) -> {
+            if (error != null || !result.isSuccessful()) {
+                sends.remove(key, send);
+            }
+            if (error != null) {
+                pending.completeExceptionally(error);
+            } else {
+                pending.complete(result);
+            }
+        });
+        return pending;
+    }
+
+    private static String hash(String to, String message) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(to.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(message.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Send {
+        private final String requestHash;
+        private final CompletableFuture<SmsSendResult> result;
+
+        private Send(String requestHash, CompletableFuture<SmsSendResult> result) {
+            this.requestHash = requestHash;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsJournalConfig;
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Circular, memory-mapped write-ahead journal of outbound messages.
+ *
+ * Each record is an int length followed by the length-prefixed id, recipient and message. The length is
+ * written last and the following header is zeroed first, so a torn write always reads as the end of the
+ * journal. When a record does not fit before the end of the file it is written at the start instead, into
+ * space the dispatcher has already acknowledged, and a wrap marker is left where it would have gone.
+ * Acknowledged progress is kept in a separate checkpoint file; on restart everything after the checkpoint
+ * is replayed. Once the dispatcher catches up with the writer both offsets rewind to zero.
+ */
+@Component
+public class SmsJournal {
+
+    private static final String JOURNAL_FILE = "journal.dat";
+    private static final String CHECKPOINT_FILE = "checkpoint.dat";
+    private static final int WRAP = -1;
+
+    private final MappedByteBuffer journal;
+    private final MappedByteBuffer checkpoint;
+    private final boolean syncOnAppend;
+    private int readOffset;
+    private int writeOffset;
+
+    public SmsJournal(SmsJournalConfig smsJournalConfig) throws IOException {
+        Path directory = Path.of(smsJournalConfig.getPath());
+        Files.createDirectories(directory);
+        this.journal = map(directory.resolve(JOURNAL_FILE), smsJournalConfig.getCapacity());
+        this.checkpoint = map(directory.resolve(CHECKPOINT_FILE), Integer.BYTES);
+        this.syncOnAppend = smsJournalConfig.isSyncOnAppend();
+
+        int checkpointed = checkpoint.getInt(0);
+        this.readOffset = checkpointed >= 0 && checkpointed <= journal.capacity() - Integer.BYTES ? checkpointed : 0;
+        int position = skipWrap(readOffset);
+        int length;
+        while ((length = journal.getInt(position)) > 0) {
+            position = skipWrap(position + Integer.BYTES + length);
+        }
+        this.writeOffset = position;
+    }
+
+    /**
+     * Appends a message and returns its id once the record is in the mapped file.
+     * @throws IllegalStateException if the journal is full because the dispatcher has fallen behind
+     * @throws IllegalArgumentException if the message could never fit in the journal
+     */
+    public synchronized String append(String to, String message) {
+        String id = UUID.randomUUID().toString();
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] toBytes = to.getBytes(StandardCharsets.UTF_8);
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = 3 * Integer.BYTES + idBytes.length + toBytes.length + messageBytes.length;
+        if (!fits(0, length, journal.capacity())) {
+            throw new IllegalArgumentException("message is larger than the sms journal");
+        }
+        if (readOffset == writeOffset && !fits(writeOffset, length, journal.capacity())) {
+            rewind();
+        }
+
+        int start;
+        if (writeOffset < readOffset) {
+            start = writeOffset;
+            if (!fits(start, length, readOffset)) {
+                throw new IllegalStateException("sms journal is full");
+            }
+        } else if (fits(writeOffset, length, journal.capacity())) {
+            start = writeOffset;
+        } else if (fits(0, length, readOffset)) {
+            start = 0;
+        } else {
+            throw new IllegalStateException("sms journal is full");
+        }
+
+        int position = start + Integer.BYTES;
+        position = putBytes(position, idBytes);
+        position = putBytes(position, toBytes);
+        position = putBytes(position, messageBytes);
+        journal.putInt(position, 0);
+        journal.putInt(start, length);
+        if (start != writeOffset) {
+            journal.putInt(writeOffset, WRAP);
+        }
+        writeOffset = position;
+
+        if (syncOnAppend) {
+            journal.force();
+        }
+        return id;
+    }
+
+    /**
+     * Reads up to maxEntries unacknowledged messages without consuming them.
+     */
+    public synchronized Batch read(int maxEntries) {
+        List<BulkSmsRequest> requests = new ArrayList<>();
+        int position = skipWrap(readOffset);
+        int length;
+        while (requests.size() < maxEntries && (length = journal.getInt(position)) > 0) {
+            int field = position + Integer.BYTES;
+            field += Integer.BYTES + journal.getInt(field); // id
+            String to = getString(field);
+            field += Integer.BYTES + journal.getInt(field);
+            String message = getString(field);
+            requests.add(new BulkSmsRequest(to, message));
+            position = skipWrap(position + Integer.BYTES + length);
+        }
+        return new Batch(requests, position);
+    }
+
+    /**
+     * Marks everything before nextOffset as sent and persists the checkpoint.
+     */
+    public synchronized void acknowledge(int nextOffset) {
+        readOffset = nextOffset;
+        if (readOffset == writeOffset) {
+            rewind();
+        } else {
+            checkpoint.putInt(0, readOffset);
+            checkpoint.force();
+        }
+    }
+
+    /**
+     * Acknowledges everything before nextOffset except the given requests, which are appended again so they are
+     * retried after anything queued since. The requests are written before the checkpoint moves, so a crash in
+     * between sends them twice rather than not at all. Nothing changes if they do not all fit.
+     * @throws IllegalStateException if the journal is too full to hold the requests again
+     */
+    public synchronized void requeue(int nextOffset, List<BulkSmsRequest> requests) {
+        int requeuedFrom = writeOffset;
+        try {
+            for (BulkSmsRequest request : requests) {
+                append(request.getTo(), request.getMessage());
+            }
+        } catch (RuntimeException ex) {
+            journal.putInt(requeuedFrom, 0);
+            writeOffset = requeuedFrom;
+            throw ex;
+        }
+        acknowledge(nextOffset);
+    }
+
+    /**
+     * Whether a record of length starting at start, and the zeroed header after it, end at or before limit.
+     */
+    private static boolean fits(int start, int length, int limit) {
+        return (long) start + 2L * Integer.BYTES + length <= limit;
+    }
+
+    private int skipWrap(int position) {
+        return journal.getInt(position) == WRAP ? 0 : position;
+    }
+
+    private void rewind() {
+        journal.putInt(0, 0);
+        readOffset = 0;
+        writeOffset = 0;
+        checkpoint.putInt(0, 0);
+        checkpoint.force();
+    }
+
+    private int putBytes(int position, byte[] bytes) {
+        journal.putInt(position, bytes.length);
+        journal.put(position + Integer.BYTES, bytes);
+        return position + Integer.BYTES + bytes.length;
+    }
+
+    private String getString(int position) {
+        byte[] bytes = new byte[journal.getInt(position)];
+        journal.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Batch {
+        private List<BulkSmsRequest> requests;
+        private int nextOffset;
+
+        public boolean isEmpty() {
+            return requests.isEmpty();
+        }
+    }
+}
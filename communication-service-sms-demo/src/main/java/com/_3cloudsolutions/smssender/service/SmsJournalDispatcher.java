@@ -0,0 +1,62 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsJournalConfig;
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com._3cloudsolutions.smssender.models.BulkSmsSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the journal in the background. A batch is only acknowledged once the provider has answered for it,
+ * so anything in flight when the process dies is sent again on restart. When part of a batch fails, only
+ * those recipients are queued again; the whole batch is retried only if the journal has no room for them.
+ * Delivery is therefore at least once: a crash or a full journal can still send a recipient twice.
+ */
+@Slf4j
+@Component
+public class SmsJournalDispatcher {
+
+    private SmsJournal smsJournal;
+    private SmsService smsService;
+    private SmsJournalConfig smsJournalConfig;
+
+    public SmsJournalDispatcher(SmsJournal smsJournal, SmsService smsService, SmsJournalConfig smsJournalConfig) {
+        this.smsJournal = smsJournal;
+        this.smsService = smsService;
+        this.smsJournalConfig = smsJournalConfig;
+    }
+
+    @Scheduled(fixedDelayString = "${sms.journal.dispatch-interval:100}")
+    public void dispatch() {
+        SmsJournal.Batch batch = smsJournal.read(smsJournalConfig.getDispatchBatchSize());
+        while (!batch.isEmpty()) {
+            List<BulkSmsRequest> unsent = new ArrayList<>();
+            BulkSmsSummary summary = smsService.sendBulkText(Flux.fromIterable(batch.getRequests()),
+                    failedBatch -> {
+                        synchronized (unsent) {
+                            unsent.addAll(failedBatch);
+                        }
+                    }).block();
+            if (!unsent.isEmpty()) {
+                try {
+                    smsJournal.requeue(batch.getNextOffset(), unsent);
+                    log.warn("{} queued messages could not be sent and were queued again", unsent.size());
+                } catch (IllegalStateException ex) {
+                    log.warn("{} queued messages could not be sent, retrying the batch", unsent.size(), ex);
+                }
+                // Wait for the next interval rather than spinning on a provider that is failing
+                return;
+            }
+            if (summary != null && summary.getFailed() > 0) {
+                log.warn("{} queued messages were rejected: {}", summary.getFailed(), summary.getFailedAddresses());
+            }
+            smsJournal.acknowledge(batch.getNextOffset());
+            batch = smsJournal.read(smsJournalConfig.getDispatchBatchSize());
+        }
+    }
+}
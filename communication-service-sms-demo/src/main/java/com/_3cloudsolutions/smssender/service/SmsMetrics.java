@@ -0,0 +1,136 @@
+package com._3cloudsolutions.smssender.service;
+
+import com.azure.communication.sms.models.SmsSendResult;
+import com.azure.core.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for the send path, tagged by operation (text, asyncText, groupText, ...).
+ * <ul>
+ *     <li>sms.send - latency of each provider call, with percentile histograms, tagged by outcome</li>
+ *     <li>sms.send.recipients - recipients per provider call</li>
+ *     <li>sms.send.in.flight - provider calls currently outstanding</li>
+ *     <li>sms.send.errors - failed recipients and failed calls, tagged by exception type and provider code</li>
+ * </ul>
+ * Meters are created once per operation and cached, so recording only touches the meters themselves.
+ */
+@Component
+public class SmsMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, OperationMeters> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public SmsMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> Mono<T> record(String operation, int recipients, Mono<T> send) {
+        return Mono.defer(() -> {
+            OperationMeters meters = meters(operation);
+            Timer.Sample sample = meters.start(recipients);
+            return send.doOnError(ex -> recordError(operation, ex))
+                    .doFinally(signal -> meters.stop(sample, meters.timer(signal)));
+        });
+    }
+
+    /**
+     * Counts a recipient the provider accepted the call for but did not send to.
+     */
+    public void recordResult(String operation, SmsSendResult result) {
+        if (!result.isSuccessful()) {
+            errors(operation, "provider", String.valueOf(result.getHttpStatusCode())).increment();
+        }
+    }
+
+    public void recordError(String operation, Throwable ex) {
+        String code = ex instanceof HttpResponseException && ((HttpResponseException) ex).getResponse() != null
+                ? String.valueOf(((HttpResponseException) ex).getResponse().getStatusCode())
+                : "none";
+        errors(operation, ex.getClass().getSimpleName(), code).increment();
+    }
+
+    private OperationMeters meters(String operation) {
+        OperationMeters meters = operations.get(operation);
+        return meters != null ? meters : operations.computeIfAbsent(operation, op -> new OperationMeters(registry, op));
+    }
+
+    private Counter errors(String operation, String type, String code) {
+        String key = operation + '/' + type + '/' + code;
+        Counter counter = errors.get(key);
+        return counter != null ? counter : errors.computeIfAbsent(key, k -> Counter.builder("sms.send.errors")
+                .description("Failed SMS sends by exception type and provider error code")
+                .tag("operation", operation)
+                .tag("type", type)
+                .tag("code", code)
+                .register(registry));
+    }
+
+    private static final class OperationMeters {
+
+        private final MeterRegistry registry;
+        private final Timer success;
+        private final Timer error;
+        private final Timer cancel;
+        private final DistributionSummary recipients;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        OperationMeters(MeterRegistry registry, String operation) {
+            this.registry = registry;
+            this.success = timer(registry, operation, "success");
+            this.error = timer(registry, operation, "error");
+            this.cancel = timer(registry, operation, "cancel");
+            this.recipients = DistributionSummary.builder("sms.send.recipients")
+                    .description("Recipients per SMS provider call")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            registry.gauge("sms.send.in.flight", Tags.of("operation", operation), inFlight);
+        }
+
+        Timer.Sample start(int recipientCount) {
+            inFlight.incrementAndGet();
+            recipients.record(recipientCount);
+            return Timer.start(registry);
+        }
+
+        void stop(Timer.Sample sample, Timer timer) {
+            inFlight.decrementAndGet();
+            sample.stop(timer);
+        }
+
+        Timer timer(SignalType signal) {
+            switch (signal) {
+                case ON_COMPLETE:
+                    return success;
+                case ON_ERROR:
+                    return error;
+                default:
+                    return cancel;
+            }
+        }
+
+        private static Timer timer(MeterRegistry registry, String operation, String outcome) {
+            return Timer.builder("sms.send")
+                    .description("Latency of SMS provider calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
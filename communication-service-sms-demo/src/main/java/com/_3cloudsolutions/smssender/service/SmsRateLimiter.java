@@ -0,0 +1,97 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsRateLimitConfig;
+import com.azure.communication.sms.models.SmsSendResult;
+import com.azure.core.exception.HttpResponseException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-sender rate limiting for outbound sends. The rate adapts AIMD-style: it is cut whenever the provider
+ * answers 429 and creeps back towards the configured rate with every successful send.
+ */
+@Component
+public class SmsRateLimiter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ConcurrentMap<String, Sender> senders = new ConcurrentHashMap<>();
+    private SmsRateLimitConfig smsRateLimitConfig;
+
+    public SmsRateLimiter(SmsRateLimitConfig smsRateLimitConfig) {
+        this.smsRateLimitConfig = smsRateLimitConfig;
+    }
+
+    /**
+     * Completes once the sender may send to permits recipients, or fails with SmsThrottledException if that
+     * would take longer than the configured max wait.
+     */
+    public Mono<Void> acquire(String sender, int permits) {
+        return acquire(sender, permits, smsRateLimitConfig.getMaxWait().toNanos());
+    }
+
+    /**
+     * Completes once the sender may send to permits recipients, however long that takes.
+     */
+    public Mono<Void> acquireQueued(String sender, int permits) {
+        return acquire(sender, permits, Long.MAX_VALUE);
+    }
+
+    public void onResult(String sender, SmsSendResult result) {
+        if (result.getHttpStatusCode() == TOO_MANY_REQUESTS) {
+            onThrottled(sender);
+        } else if (result.isSuccessful()) {
+            sender(sender).bucket.increase(smsRateLimitConfig.getRecoveryStep() * smsRateLimitConfig.getPermitsPerSecond(),
+                    smsRateLimitConfig.getPermitsPerSecond());
+        }
+    }
+
+    public void onError(String sender, Throwable error) {
+        if (error instanceof HttpResponseException
+                && ((HttpResponseException) error).getResponse().getStatusCode() == TOO_MANY_REQUESTS) {
+            onThrottled(sender);
+        }
+    }
+
+    public double getPermitsPerSecond(String sender) {
+        return sender(sender).bucket.getPermitsPerSecond();
+    }
+
+    private Mono<Void> acquire(String sender, int permits, long maxWaitNanos) {
+        return Mono.defer(() -> {
+            long wait = sender(sender).bucket.reserve(permits, maxWaitNanos);
+            if (wait < 0) {
+                return Mono.error(new SmsThrottledException(sender));
+            }
+            return wait == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait)).then();
+        });
+    }
+
+    private void onThrottled(String sender) {
+        Sender state = sender(sender);
+        long now = System.nanoTime();
+        long last = state.lastBackoff.get();
+        if (now - last >= smsRateLimitConfig.getBackoffCoolDown().toNanos() && state.lastBackoff.compareAndSet(last, now)) {
+            state.bucket.decrease(smsRateLimitConfig.getBackoffFactor(), smsRateLimitConfig.getMinPermitsPerSecond());
+        }
+    }
+
+    private Sender sender(String sender) {
+        return senders.computeIfAbsent(sender, key -> new Sender(
+                new TokenBucket(smsRateLimitConfig.getPermitsPerSecond(), smsRateLimitConfig.getBurst())));
+    }
+
+    private static class Sender {
+        private final TokenBucket bucket;
+        private final AtomicLong lastBackoff = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+
+        private Sender(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
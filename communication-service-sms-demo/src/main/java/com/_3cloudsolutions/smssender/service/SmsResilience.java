@@ -0,0 +1,141 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsResilienceConfig;
+import com.azure.core.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Guards provider calls with a deadline, bounded retries and a circuit breaker.
+ * <ul>
+ *     <li>Each attempt is cancelled after attemptTimeout, and the whole send after deadline.</li>
+ *     <li>Only errors where the provider certainly did not take the message are retried (503 and failed
+ *     connects), with jittered exponential backoff. A timed out send may have been delivered, so retrying it
+ *     could text the recipient twice. Throttling (429) is not retried here, where it would bypass the rate
+ *     limiter; SmsRateLimiter slows the sender down instead.</li>
+ *     <li>Timeouts, 5xx responses and transport errors count against the breaker; while it is open sends fail
+ *     with SmsCircuitOpenException without reaching the provider.</li>
+ * </ul>
+ */
+@Component
+public class SmsResilience {
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final SmsResilienceConfig smsResilienceConfig;
+    private final SmsCircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Counter retries;
+    private final Counter attemptTimeouts;
+    private final Counter deadlineTimeouts;
+    private final Counter rejected;
+    private final Map<SmsCircuitBreaker.State, Counter> transitions = new EnumMap<>(SmsCircuitBreaker.State.class);
+
+    public SmsResilience(SmsResilienceConfig smsResilienceConfig, MeterRegistry meterRegistry) {
+        this.smsResilienceConfig = smsResilienceConfig;
+
+        for (SmsCircuitBreaker.State state : SmsCircuitBreaker.State.values()) {
+            transitions.put(state, Counter.builder("sms.circuit.transitions")
+                    .description("Circuit breaker state changes")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        SmsResilienceConfig.CircuitBreaker breaker = smsResilienceConfig.getCircuitBreaker();
+        this.circuitBreaker = new SmsCircuitBreaker(breaker.getFailureRateThreshold(), breaker.getWindowSize(),
+                breaker.getMinimumCalls(), breaker.getOpenDuration().toNanos(), breaker.getHalfOpenCalls(),
+                state -> transitions.get(state).increment());
+        for (SmsCircuitBreaker.State state : SmsCircuitBreaker.State.values()) {
+            Gauge.builder("sms.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .description("1 for the circuit breaker's current state, 0 otherwise")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        this.retries = Counter.builder("sms.resilience.retries").register(meterRegistry);
+        this.attemptTimeouts = Counter.builder("sms.resilience.timeouts").tag("scope", "attempt").register(meterRegistry);
+        this.deadlineTimeouts = Counter.builder("sms.resilience.timeouts").tag("scope", "deadline").register(meterRegistry);
+        this.rejected = Counter.builder("sms.resilience.rejected")
+                .description("Sends refused because the circuit was open")
+                .register(meterRegistry);
+
+        this.retry = Retry.backoff(smsResilienceConfig.getMaxRetries(), smsResilienceConfig.getRetryBackoff())
+                .maxBackoff(smsResilienceConfig.getMaxRetryBackoff())
+                .jitter(smsResilienceConfig.getRetryJitter())
+                .filter(SmsResilience::isRetryable)
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Subscribes to call once per attempt, so call must be lazy.
+     */
+    public <T> Mono<T> execute(Mono<T> call) {
+        return attempt(call)
+                .retryWhen(retry)
+                .timeout(smsResilienceConfig.getDeadline())
+                .doOnError(TimeoutException.class, ex -> deadlineTimeouts.increment())
+                .onErrorMap(TimeoutException.class, SmsTimeoutException::new);
+    }
+
+    public SmsCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> Mono<T> attempt(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new SmsCircuitOpenException());
+            }
+            return call.timeout(smsResilienceConfig.getAttemptTimeout())
+                    .doOnSuccess(result -> circuitBreaker.onSuccess())
+                    .doOnError(ex -> {
+                        if (ex instanceof TimeoutException) {
+                            attemptTimeouts.increment();
+                        }
+                        if (isProviderFailure(ex)) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::release)
+                    .onErrorMap(TimeoutException.class, SmsTimeoutException::new);
+        });
+    }
+
+    static boolean isRetryable(Throwable ex) {
+        if (ex instanceof HttpResponseException) {
+            return statusCode((HttpResponseException) ex) == SERVICE_UNAVAILABLE;
+        }
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Client errors say nothing about the provider's health; throttling least of all.
+     */
+    static boolean isProviderFailure(Throwable ex) {
+        if (ex instanceof HttpResponseException) {
+            return statusCode((HttpResponseException) ex) >= 500;
+        }
+        return true;
+    }
+
+    private static int statusCode(HttpResponseException ex) {
+        return ex.getResponse() == null ? 0 : ex.getResponse().getStatusCode();
+    }
+}
@@ -1,60 +1,194 @@
 package com._3cloudsolutions.smssender.service;
 
 import com._3cloudsolutions.smssender.config.SmsServerConfig;
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com._3cloudsolutions.smssender.models.BulkSmsSummary;
 import com.azure.communication.sms.SmsAsyncClient;
-import com.azure.communication.sms.SmsClient;
 import com.azure.communication.sms.models.SmsSendOptions;
 import com.azure.communication.sms.models.SmsSendResult;
-import com.azure.core.util.Context;
-import org.springframework.scheduling.annotation.Async;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Component
 public class SmsService {
 
-    private SmsClient smsClient;
     private SmsAsyncClient smsAsyncClient;
     private SmsServerConfig smsServerConfig;
+    private SmsRateLimiter smsRateLimiter;
+    private SmsMetrics smsMetrics;
+    private SmsResilience smsResilience;
 
-    public SmsService(SmsClient smsClient, SmsAsyncClient smsAsyncClient, SmsServerConfig smsServerConfig) {
-        this.smsClient = smsClient;
+    public SmsService(SmsAsyncClient smsAsyncClient, SmsServerConfig smsServerConfig, SmsRateLimiter smsRateLimiter,
+                      SmsMetrics smsMetrics, SmsResilience smsResilience) {
         this.smsAsyncClient = smsAsyncClient;
         this.smsServerConfig = smsServerConfig;
+        this.smsRateLimiter = smsRateLimiter;
+        this.smsMetrics = smsMetrics;
+        this.smsResilience = smsResilience;
     }
 
+    /**
+     * Blocking send. It goes through the async client like every other send so that the deadline can
+     * cancel the provider call instead of leaving the request thread waiting on it.
+     */
     public SmsSendResult sendText(String to, String message) {
-        SmsSendResult smsSendResult = null;
-        SmsSendOptions options = new SmsSendOptions();
-        options.setDeliveryReportEnabled(true);
+        String from = smsServerConfig.getFromNumber();
 
-        smsSendResult = smsClient.send(smsServerConfig.getFromNumber(), to, message, options);
+        return smsRateLimiter.acquire(from, 1)
+                .then(send("text", from, 1, options -> smsAsyncClient.send(from, to, message, options)))
+                .doOnNext(result -> onResult("text", from, result))
+                .block();
+    }
 
-        return smsSendResult;
+    /**
+     * Sends a single text through the async client. Nothing is sent until the returned Mono is subscribed,
+     * and no thread is held while waiting on the provider.
+     */
+    public Mono<SmsSendResult> sendAsyncText(String to, String message) {
+        String from = smsServerConfig.getFromNumber();
+
+        return smsRateLimiter.acquire(from, 1)
+                .then(send("asyncText", from, 1, options -> smsAsyncClient.send(from, to, message, options)))
+                .doOnNext(result -> onResult("asyncText", from, result));
     }
 
-    @Async
-    public SmsSendResult sendAsyncText(String to, String message) {
-        SmsSendResult smsSendResult = null;
-        SmsSendOptions options = new SmsSendOptions();
-        options.setDeliveryReportEnabled(true);
+    /**
+     * Sends one message to a group in a single provider call. A group can need more permits than the burst
+     * allows, so it waits for the rate limiter rather than being shed.
+     */
+    public Iterable<SmsSendResult> sendGroupText(List<String> to, String message) {
+        String from = smsServerConfig.getFromNumber();
 
-        smsSendResult = smsClient.send(smsServerConfig.getFromNumber(), to, message, options);
+        return smsRateLimiter.acquireQueued(from, to.size())
+                .then(send("groupText", from, to.size(), options -> smsAsyncClient.send(from, to, message, options)))
+                .doOnNext(results -> results.forEach(result -> onResult("groupText", from, result)))
+                .block();
+    }
 
-        return smsSendResult;
+    /**
+     * Sends one message to a group through the async client, emitting one result per recipient.
+     * Groups larger than batchSize are split into batches sent bulkConcurrency at a time, and each
+     * batch's results are emitted as soon as that batch completes. Like bulk sends, batches wait for the rate
+     * limiter rather than being shed.
+     */
+    public Flux<SmsSendResult> sendAsyncGroupText(List<String> to, String message) {
+        String from = smsServerConfig.getFromNumber();
+
+        return Flux.fromIterable(to)
+                .buffer(smsServerConfig.getBatchSize())
+                .flatMap(batch -> smsRateLimiter.acquireQueued(from, batch.size())
+                                .then(send("asyncGroupText", from, batch.size(),
+                                        options -> smsAsyncClient.send(from, batch, message, options))),
+                        smsServerConfig.getBulkConcurrency())
+                .flatMapIterable(results -> results)
+                .doOnNext(result -> onResult("asyncGroupText", from, result));
     }
 
-    public Iterable<SmsSendResult> sendGroupText(List<String> to, String message) {
-        Iterable<SmsSendResult> smsSendResult = null;
+    /**
+     * Splits a stream of recipients into service-sized batches and sends up to bulkConcurrency batches at once.
+     * Consecutive requests sharing a message are batched together. Upstream is only read as batches complete,
+     * so the input is never held in memory. Batches wait for the rate limiter rather than being shed.
+     * Recipients that are not valid phone numbers, or that have no message because neither their line nor the
+     * request gave one, are counted as failed without being sent. So are the recipients of a batch that fails
+     * as a whole, for example on a timeout or an open circuit, and the summary is always returned.
+     */
+    public Mono<BulkSmsSummary> sendBulkText(Flux<BulkSmsRequest> requests) {
+        return sendBulkText(requests, batch -> { });
+    }
+
+    /**
+     * @param unsent given the requests of each batch that failed as a whole, so they can be sent again
+     */
+    public Mono<BulkSmsSummary> sendBulkText(Flux<BulkSmsRequest> requests, Consumer<List<BulkSmsRequest>> unsent) {
+        String from = smsServerConfig.getFromNumber();
+
+        return Mono.defer(() -> {
+            BulkSmsSummary summary = new BulkSmsSummary();
+            return requests
+                    .<BulkSmsRequest>handle((request, sink) -> {
+                        String to = PhoneNumberNormalizer.normalize(request.getTo());
+                        if (to == null || request.getMessage() == null || request.getMessage().isBlank()) {
+                            summary.reject(request.getTo());
+                        } else {
+                            sink.next(new BulkSmsRequest(to, request.getMessage()));
+                        }
+                    })
+                    .windowUntilChanged(BulkSmsRequest::getMessage)
+                    .concatMap(sameMessage -> sameMessage.buffer(smsServerConfig.getBatchSize()))
+                    .flatMap(batch -> smsRateLimiter.acquireQueued(from, batch.size())
+                                    .then(send("bulkText", from, batch.size(), options -> smsAsyncClient.send(from,
+                                            batch.stream().map(BulkSmsRequest::getTo).collect(Collectors.toList()),
+                                            batch.get(0).getMessage(), options)))
+                                    .doOnNext(results -> results.forEach(result -> onResult("bulkText", from, result)))
+                                    .onErrorResume(ex -> {
+                                        log.warn("Bulk batch of {} recipients failed", batch.size(), ex);
+                                        summary.fail(batch.stream().map(BulkSmsRequest::getTo).collect(Collectors.toList()));
+                                        unsent.accept(batch);
+                                        return Mono.empty();
+                                    }),
+                            smsServerConfig.getBulkConcurrency())
+                    .doOnNext(summary::add)
+                    .then(Mono.just(summary));
+        });
+    }
+
+    /**
+     * Sends a template personalised from a data file, one line per recipient (see TemplateRecipients).
+     * Rows are rendered as they are read; within each window of templateGroupWindow rows, recipients whose
+     * rendered text is identical are brought together so they share multi-recipient sends.
+     */
+    public Mono<BulkSmsSummary> sendTemplatedText(MessageTemplate template, Flux<String> lines) {
+        return Mono.defer(() -> {
+            TemplateRecipients recipients = new TemplateRecipients(template);
+            return sendBulkText(lines
+                    .<BulkSmsRequest>handle((line, sink) -> {
+                        BulkSmsRequest request = recipients.next(line);
+                        if (request != null) {
+                            sink.next(request);
+                        }
+                    })
+                    .buffer(smsServerConfig.getTemplateGroupWindow())
+                    .concatMapIterable(SmsService::groupByMessage));
+        });
+    }
+
+    /**
+     * One provider call under the resilience policy. Every attempt is timed, and a throttled attempt slows the
+     * sender down.
+     */
+    private <T> Mono<T> send(String operation, String from, int recipients, Function<SmsSendOptions, Mono<T>> call) {
         SmsSendOptions options = new SmsSendOptions();
         options.setDeliveryReportEnabled(true);
 
-        smsSendResult = smsClient.sendWithResponse(smsServerConfig.getFromNumber(), to, message,
-                options, Context.NONE).getValue();
+        return smsResilience.execute(smsMetrics.record(operation, recipients, Mono.defer(() -> call.apply(options)))
+                .doOnError(ex -> smsRateLimiter.onError(from, ex)));
+    }
+
+    private static List<BulkSmsRequest> groupByMessage(List<BulkSmsRequest> requests) {
+        Map<String, List<BulkSmsRequest>> groups = new LinkedHashMap<>();
+        for (BulkSmsRequest request : requests) {
+            groups.computeIfAbsent(request.getMessage(), message -> new ArrayList<>()).add(request);
+        }
+        List<BulkSmsRequest> grouped = new ArrayList<>(requests.size());
+        groups.values().forEach(grouped::addAll);
+        return grouped;
+    }
 
-        return smsSendResult;
+    private void onResult(String operation, String from, SmsSendResult result) {
+        smsRateLimiter.onResult(from, result);
+        smsMetrics.recordResult(operation, result);
     }
 
 }
@@ -0,0 +1,11 @@
+package com._3cloudsolutions.smssender.service;
+
+/**
+ * Thrown when a send is shed because the sender's rate limit would make it wait longer than allowed.
+ */
+public class SmsThrottledException extends RuntimeException {
+
+    public SmsThrottledException(String sender) {
+        super("send rate exceeded for " + sender);
+    }
+}
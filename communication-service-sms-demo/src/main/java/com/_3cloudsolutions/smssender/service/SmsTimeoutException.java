@@ -0,0 +1,13 @@
+package com._3cloudsolutions.smssender.service;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Thrown when a send does not complete within its deadline. The provider may still have accepted it.
+ */
+public class SmsTimeoutException extends RuntimeException {
+
+    public SmsTimeoutException(TimeoutException cause) {
+        super("SMS send did not complete in time", cause);
+    }
+}
@@ -0,0 +1,86 @@
+package com._3cloudsolutions.smssender.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Tracks the connection pools reactor-netty opens for the SMS transport, one per remote address,
+ * and publishes each pool's occupancy as sms.transport.connections gauges.
+ */
+@Component
+public class SmsTransportMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final ConcurrentMap<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<Meter>> meters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SmsTransportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        String key = poolKey(poolName, id, remoteAddress);
+        pools.put(key, metrics);
+        Tags tags = Tags.of("pool", poolName, "remote", String.valueOf(remoteAddress), "id", id);
+        meters.put(key, List.of(
+                gauge("active", tags, metrics, ConnectionPoolMetrics::acquiredSize),
+                gauge("idle", tags, metrics, ConnectionPoolMetrics::idleSize),
+                gauge("total", tags, metrics, ConnectionPoolMetrics::allocatedSize),
+                gauge("pending", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize)));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        String key = poolKey(poolName, id, remoteAddress);
+        pools.remove(key);
+        List<Meter> removed = meters.remove(key);
+        if (removed != null) {
+            removed.forEach(meterRegistry::remove);
+        }
+    }
+
+    public ConcurrentMap<String, ConnectionPoolMetrics> getPools() {
+        return pools;
+    }
+
+    public JSONArray toJsonArray() {
+        JSONArray array = new JSONArray();
+        pools.forEach((name, metrics) -> {
+            JSONObject json = new JSONObject();
+            json.put("pool", name);
+            json.put("active", metrics.acquiredSize());
+            json.put("idle", metrics.idleSize());
+            json.put("total", metrics.allocatedSize());
+            json.put("max", metrics.maxAllocatedSize());
+            json.put("pendingAcquire", metrics.pendingAcquireSize());
+            array.add(json);
+        });
+        return array;
+    }
+
+    private Meter gauge(String state, Tags tags, ConnectionPoolMetrics metrics,
+                        ToDoubleFunction<ConnectionPoolMetrics> value) {
+        return Gauge.builder("sms.transport.connections", metrics, value)
+                .tags(tags)
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    private static String poolKey(String poolName, String id, SocketAddress remoteAddress) {
+        return poolName + "/" + remoteAddress + "/" + id;
+    }
+}
@@ -0,0 +1,194 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders a template for each line of a campaign data file. The file is either CSV with a header row naming
+ * a "to" column and every template field, or NDJSON with one object per recipient. A row that is malformed
+ * or has no value for a template field, in either format, comes back with no message, so it is rejected like
+ * any recipient without one instead of being sent with a blank. The line, value and text buffers are reused
+ * from row to row, so each recipient costs little more than its rendered message.
+ * Instances hold per-file state and must be used by one thread at a time.
+ */
+public class TemplateRecipients {
+
+    private static final String TO = "to";
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final MessageTemplate template;
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+    private final String[] values;
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder cell = new StringBuilder();
+
+    // CSV column -> field index, or -1 for columns the template does not use; null until the header is read
+    private int[] columns;
+    private int toColumn = -1;
+    private String[] cells;
+    private String to;
+
+    public TemplateRecipients(MessageTemplate template) {
+        this.template = template;
+        this.values = new String[template.getFields().size()];
+        for (int i = 0; i < values.length; i++) {
+            fieldIndexes.put(template.getFields().get(i), i);
+        }
+    }
+
+    /**
+     * @return the rendered request for this line, with no message if the row cannot be rendered in full,
+     * or null for the CSV header
+     * @throws IllegalArgumentException if the header lacks a column the template needs
+     */
+    public BulkSmsRequest next(String line) {
+        String trimmed = line.trim();
+        if (columns == null && trimmed.startsWith("{")) {
+            if (!readJson(trimmed)) {
+                return new BulkSmsRequest(trimmed, null);
+            }
+        } else if (columns == null) {
+            readHeader(trimmed);
+            return null;
+        } else {
+            readCsv(trimmed);
+        }
+        if (!template.render(values, text)) {
+            return new BulkSmsRequest(to == null ? trimmed : to, null);
+        }
+        return new BulkSmsRequest(to == null ? "" : to, text.toString());
+    }
+
+    private void readHeader(String header) {
+        cells = new String[count(header)];
+        split(header);
+        columns = new int[cells.length];
+        boolean[] present = new boolean[values.length];
+        for (int i = 0; i < cells.length; i++) {
+            String name = cells[i].trim();
+            Integer field = fieldIndexes.get(name);
+            columns[i] = field == null ? -1 : field;
+            if (field != null) {
+                present[field] = true;
+            }
+            if (TO.equalsIgnoreCase(name)) {
+                toColumn = i;
+            }
+        }
+        if (toColumn < 0) {
+            throw new IllegalArgumentException("template data has no \"to\" column");
+        }
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i]) {
+                throw new IllegalArgumentException("template data has no column for " + template.getFields().get(i));
+            }
+        }
+    }
+
+    private void readCsv(String line) {
+        int count = split(line);
+        for (int i = 0; i < columns.length; i++) {
+            String value = i < count ? cells[i] : null;
+            if (columns[i] >= 0) {
+                values[columns[i]] = value;
+            }
+            if (i == toColumn) {
+                to = value;
+            }
+        }
+    }
+
+    /**
+     * @return false if the line is not a JSON object
+     */
+    private boolean readJson(String line) {
+        to = null;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (TO.equals(name)) {
+                    to = parser.getValueAsString();
+                } else {
+                    Integer field = fieldIndexes.get(name);
+                    if (field != null) {
+                        values[field] = parser.getValueAsString();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Splits a CSV line into the reused cells array, honouring quoted cells with "" escapes.
+     * Cells beyond the header's width are dropped.
+     */
+    private int split(String line) {
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while (i <= length && count < cells.length) {
+            cell.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            cell.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        cell.append(c);
+                    }
+                }
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? length : comma;
+                cell.append(line, i, end);
+                i = end;
+            }
+            cells[count++] = cell.toString().trim();
+            i++;
+        }
+        return count;
+    }
+
+    private static int count(String header) {
+        int count = 1;
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
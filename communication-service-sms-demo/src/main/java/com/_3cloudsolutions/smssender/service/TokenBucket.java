@@ -0,0 +1,63 @@
+package com._3cloudsolutions.smssender.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its virtual-scheduling form (GCRA). Instead of a token count the bucket keeps the
+ * time at which it will next be empty, so taking permits is a single compare-and-set and reports how long the
+ * caller must wait rather than blocking it.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicLong permitsPerSecondBits;
+    private final double burst;
+
+    public TokenBucket(double permitsPerSecond, double burst) {
+        this.permitsPerSecondBits = new AtomicLong(Double.doubleToLongBits(permitsPerSecond));
+        this.burst = burst;
+    }
+
+    /**
+     * Takes permits if they are available within maxWaitNanos.
+     * @return nanoseconds to wait before sending, or -1 if the wait would exceed maxWaitNanos and nothing was taken
+     */
+    public long reserve(int permits, long maxWaitNanos) {
+        long interval = (long) (NANOS_PER_SECOND / getPermitsPerSecond());
+        long tolerance = (long) (burst * interval);
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + permits * interval;
+            long wait = Math.max(0, next - now - tolerance);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return Double.longBitsToDouble(permitsPerSecondBits.get());
+    }
+
+    /**
+     * Multiplies the rate by factor, never going below minimum.
+     */
+    public void decrease(double factor, double minimum) {
+        permitsPerSecondBits.updateAndGet(bits -> Double.doubleToLongBits(
+                Math.max(minimum, Double.longBitsToDouble(bits) * factor)));
+    }
+
+    /**
+     * Adds step to the rate, never going above maximum.
+     */
+    public void increase(double step, double maximum) {
+        permitsPerSecondBits.updateAndGet(bits -> Double.doubleToLongBits(
+                Math.min(maximum, Double.longBitsToDouble(bits) + step)));
+    }
+}
@@ -0,0 +1,77 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building as SmsController does it today, a json-smart JSONObject per response, next to a
+ * streaming Jackson generator writing the same document as a point of comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonResponseBenchmark {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    @Param({"0", "25"})
+    private int failedAddresses;
+
+    private List<String> failed;
+
+    @Setup
+    public void setUp() {
+        failed = SmsBenchmarkFixture.recipients(failedAddresses);
+    }
+
+    @Benchmark
+    public String jsonSmart() {
+        JSONObject response = new JSONObject();
+        response.put("status", failed.isEmpty() ? "success" : "failed");
+        if (!failed.isEmpty()) {
+            JSONArray array = new JSONArray();
+            array.addAll(failed);
+            response.put("failedAddresses", array);
+        }
+        return response.toJSONString();
+    }
+
+    @Benchmark
+    public String jacksonGenerator() throws IOException {
+        StringWriter out = new StringWriter(64);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("status", failed.isEmpty() ? "success" : "failed");
+            if (!failed.isEmpty()) {
+                json.writeArrayFieldStart("failedAddresses");
+                for (String address : failed) {
+                    json.writeString(address);
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import com._3cloudsolutions.smssender.service.PhoneNumberNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares PhoneNumberNormalizer with the regex-based validation SmsController used before it.
+ * Run main from the IDE, or after mvn test-compile, with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneNumberNormalizerBenchmark {
+
+    @Param({"+15555550100", "(555) 555-0100", "1-555-555-0100", "555-CALL"})
+    private String number;
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        blackhole.consume(validateUSPhoneNumber(number));
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        blackhole.consume(PhoneNumberNormalizer.normalize(number));
+    }
+
+    // The original SmsController implementation
+    private static String validateUSPhoneNumber(String number) {
+        number = number.replaceAll("[^0-9]", "");
+        if (number.length() == 10) {
+            return "+1" + number;
+        } else if (number.length() == 11 && number.charAt(0) == '1') {
+            return "+" + number;
+        } else {
+            return "";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PhoneNumberNormalizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import com._3cloudsolutions.smssender.config.SmsIdempotencyConfig;
+import com._3cloudsolutions.smssender.config.SmsJournalConfig;
+import com._3cloudsolutions.smssender.config.SmsRateLimitConfig;
+import com._3cloudsolutions.smssender.config.SmsResilienceConfig;
+import com._3cloudsolutions.smssender.config.SmsServerConfig;
+import com._3cloudsolutions.smssender.controller.SmsController;
+import com._3cloudsolutions.smssender.service.SmsIdempotencyService;
+import com._3cloudsolutions.smssender.service.SmsJournal;
+import com._3cloudsolutions.smssender.service.SmsMetrics;
+import com._3cloudsolutions.smssender.service.SmsRateLimiter;
+import com._3cloudsolutions.smssender.service.SmsResilience;
+import com._3cloudsolutions.smssender.service.SmsService;
+import com._3cloudsolutions.smssender.service.SmsTransportMetrics;
+import com._3cloudsolutions.smssender.stub.StubSmsHttpClient;
+import com.azure.communication.sms.SmsAsyncClient;
+import com.azure.communication.sms.SmsClientBuilder;
+import com.azure.core.credential.AzureKeyCredential;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wires the service and controller the way the application does, but against StubSmsHttpClient and with
+ * rate limiting opened up, so benchmarks measure this code and not the provider or the pacing.
+ */
+class SmsBenchmarkFixture {
+
+    final SmsService smsService;
+    final SmsController smsController;
+
+    SmsBenchmarkFixture() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        SmsServerConfig serverConfig = new SmsServerConfig();
+        serverConfig.setFromNumber("+18005550100");
+        SmsRateLimitConfig rateLimitConfig = new SmsRateLimitConfig();
+        rateLimitConfig.setPermitsPerSecond(1_000_000_000);
+        rateLimitConfig.setBurst(1_000_000_000);
+        SmsJournalConfig journalConfig = new SmsJournalConfig();
+        journalConfig.setPath(Files.createTempDirectory("sms-benchmark").toString());
+        journalConfig.setCapacity(1024 * 1024);
+
+        SmsAsyncClient smsAsyncClient = new SmsClientBuilder()
+                .endpoint("https://stub.communication.azure.com")
+                .credential(new AzureKeyCredential("c3R1Yi1rZXk="))
+                .httpClient(new StubSmsHttpClient())
+                .buildAsyncClient();
+
+        smsService = new SmsService(smsAsyncClient, serverConfig, new SmsRateLimiter(rateLimitConfig),
+                new SmsMetrics(registry), new SmsResilience(new SmsResilienceConfig(), registry));
+        smsController = new SmsController(smsService,
+                new SmsIdempotencyService(smsService, new SmsIdempotencyConfig(), registry),
+                new SmsJournal(journalConfig), new SmsTransportMetrics(registry));
+    }
+
+    static List<String> recipients(int count) {
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add(String.format("+1555%07d", i));
+        }
+        return recipients;
+    }
+}
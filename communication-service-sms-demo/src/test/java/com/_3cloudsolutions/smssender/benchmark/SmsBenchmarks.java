@@ -0,0 +1,29 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package with the gc profiler, so each result carries its allocation rate
+ * next to its throughput or latency, and writes them to target/jmh-result.json for comparing against a
+ * baseline. Arguments narrow the run to matching benchmarks, e.g. SmsServiceBenchmark.sendAsyncText.
+ */
+public class SmsBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(SmsBenchmarks.class.getPackageName() + ".");
+        }
+        for (String include : args) {
+            options.include(include);
+        }
+        new Runner(options
+                .addProfiler("gc")
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * SmsController request handling end to end through Spring MVC: parameter binding, validation, the
+ * idempotency layer, dispatch, and JSON response writing. Each call uses a distinct message so the
+ * idempotency cache never short-circuits the send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmsControllerBenchmark {
+
+    private static final String GROUP = String.join(",", SmsBenchmarkFixture.recipients(25));
+
+    private final AtomicLong sequence = new AtomicLong();
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(new SmsBenchmarkFixture().smsController).build();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse sms() throws Exception {
+        return perform(get("/sms").param("toAddress", "(555) 555-0100").param("message", message()));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse asyncSms() throws Exception {
+        return perform(get("/asyncsms").param("toAddress", "(555) 555-0100").param("message", message()));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse asyncGroupSms() throws Exception {
+        return perform(get("/asyncgroupsms").param("toAddress", GROUP).param("message", message()));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse invalidNumber() throws Exception {
+        return perform(get("/asyncsms").param("toAddress", "555-CALL").param("message", "benchmark"));
+    }
+
+    private String message() {
+        return "benchmark " + sequence.incrementAndGet();
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,59 @@
+package com._3cloudsolutions.smssender.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SmsService dispatch through the real SDK pipeline against an in-process provider: rate limiting, metrics,
+ * resilience, request serialization and result mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmsServiceBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int recipients;
+
+    private SmsBenchmarkFixture fixture;
+    private List<String> group;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixture = new SmsBenchmarkFixture();
+        group = SmsBenchmarkFixture.recipients(recipients);
+    }
+
+    @Benchmark
+    public void sendAsyncText(Blackhole blackhole) {
+        blackhole.consume(fixture.smsService.sendAsyncText(group.get(0), "benchmark").block());
+    }
+
+    @Benchmark
+    public void sendGroupText(Blackhole blackhole) {
+        // A single provider call, so only meaningful up to the provider's 100 recipient limit
+        blackhole.consume(fixture.smsService.sendGroupText(group.subList(0, Math.min(100, recipients)), "benchmark"));
+    }
+
+    @Benchmark
+    public void sendAsyncGroupText(Blackhole blackhole) {
+        fixture.smsService.sendAsyncGroupText(group, "benchmark").doOnNext(blackhole::consume).blockLast();
+    }
+}
@@ -0,0 +1,51 @@
+package com._3cloudsolutions.smssender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryStatusIndexTest {
+
+    @Test
+    void keepsLatestStatusPerMessage() {
+        DeliveryStatusIndex index = new DeliveryStatusIndex(8);
+        index.update("Outgoing_1", "Failed", 2_000);
+        index.update("Outgoing_1", "Delivered", 1_000);
+        index.update("Outgoing_2", "Delivered", 1_500);
+        index.update("Outgoing_2", "Failed", 3_000);
+
+        assertThat(index.get("Outgoing_1").getStatus()).isEqualTo("Failed");
+        assertThat(index.get("Outgoing_2").getStatus()).isEqualTo("Failed");
+        assertThat(index.get("Outgoing_3")).isNull();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsOldestAndKeepsTheRestReachable() {
+        DeliveryStatusIndex index = new DeliveryStatusIndex(100);
+        for (int i = 0; i < 1_000; i++) {
+            index.update("Outgoing_" + i, "Delivered", i);
+        }
+
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.get("Outgoing_899")).isNull();
+        for (int i = 900; i < 1_000; i++) {
+            assertThat(index.get("Outgoing_" + i)).isNotNull();
+        }
+    }
+
+    @Test
+    void countsStatusesPerBucket() {
+        DeliveryStatusIndex index = new DeliveryStatusIndex(16);
+        index.update("a", "Delivered", 100);
+        index.update("b", "Failed", 150);
+        index.update("c", "Delivered", 250);
+        index.update("d", "Delivered", 500);
+
+        List<Map<String, Long>> buckets = index.countByStatus(100, 300, 100);
+        assertThat(buckets).containsExactly(Map.of("Delivered", 1L, "Failed", 1L), Map.of("Delivered", 1L));
+    }
+}
@@ -0,0 +1,80 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageTemplateTest {
+
+    @Test
+    void compilesOnceAndRendersIntoTheSameBuffer() {
+        MessageTemplate template = MessageTemplate.compile("Hi {{ name }}, {{code}} is your code. Bye {{name}}");
+        StringBuilder out = new StringBuilder();
+
+        assertThat(template.getFields()).containsExactly("name", "code");
+        template.render(new String[]{"Ann", "1234"}, out);
+        assertThat(out.toString()).isEqualTo("Hi Ann, 1234 is your code. Bye Ann");
+        template.render(new String[]{"Bo", null}, out);
+        assertThat(out.toString()).isEqualTo("Hi Bo,  is your code. Bye Bo");
+        assertThat(MessageTemplate.compile("no placeholders").getFields()).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedPlaceholders() {
+        assertThatThrownBy(() -> MessageTemplate.compile("Hi {{name")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MessageTemplate.compile("Hi {{ }}")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rendersCsvRowsByHeader() {
+        TemplateRecipients recipients = new TemplateRecipients(MessageTemplate.compile("{{name}}: {{note}}"));
+
+        assertThat(recipients.next("note,To,name,unused")).isNull();
+        BulkSmsRequest first = recipients.next("\"one, \"\"quoted\"\"\",+15555550100,Ann,x");
+        BulkSmsRequest second = recipients.next("plain,+15555550101,Bo");
+
+        assertThat(first.getTo()).isEqualTo("+15555550100");
+        assertThat(first.getMessage()).isEqualTo("Ann: one, \"quoted\"");
+        assertThat(second.getTo()).isEqualTo("+15555550101");
+        assertThat(second.getMessage()).isEqualTo("Bo: plain");
+    }
+
+    @Test
+    void rendersNdjsonRows() {
+        TemplateRecipients recipients = new TemplateRecipients(MessageTemplate.compile("Hi {{name}} ({{id}})"));
+
+        BulkSmsRequest request = recipients.next("{\"to\":\"+15555550100\",\"name\":\"Ann\",\"id\":7,\"extra\":{\"a\":1}}");
+
+        assertThat(request.getTo()).isEqualTo("+15555550100");
+        assertThat(request.getMessage()).isEqualTo("Hi Ann (7)");
+    }
+
+    @Test
+    void leavesRowsMissingATemplateFieldWithoutAMessage() {
+        TemplateRecipients ndjson = new TemplateRecipients(MessageTemplate.compile("Hi {{name}} ({{id}})"));
+        TemplateRecipients csv = new TemplateRecipients(MessageTemplate.compile("Hi {{name}} ({{id}})"));
+
+        BulkSmsRequest missing = ndjson.next("{\"to\":\"+15555550100\",\"name\":\"Ann\"}");
+        BulkSmsRequest malformed = ndjson.next("{\"to\":");
+        csv.next("to,name,id");
+        BulkSmsRequest shortRow = csv.next("+15555550101,Bo");
+
+        assertThat(missing.getTo()).isEqualTo("+15555550100");
+        assertThat(missing.getMessage()).isNull();
+        assertThat(malformed.getMessage()).isNull();
+        assertThat(shortRow.getTo()).isEqualTo("+15555550101");
+        assertThat(shortRow.getMessage()).isNull();
+        assertThat(csv.next("+15555550102,Cy,").getMessage()).isEqualTo("Hi Cy ()");
+    }
+
+    @Test
+    void rejectsHeadersMissingTemplateFields() {
+        TemplateRecipients recipients = new TemplateRecipients(MessageTemplate.compile("Hi {{name}}"));
+
+        assertThatThrownBy(() -> recipients.next("to,first")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TemplateRecipients(MessageTemplate.compile("x")).next("name"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com._3cloudsolutions.smssender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneNumberNormalizerTest {
+
+    @Test
+    void normalizesUsNumbers() {
+        assertThat(PhoneNumberNormalizer.normalize("(555) 555-0100")).isEqualTo("+15555550100");
+        assertThat(PhoneNumberNormalizer.normalize("1.555.555.0100")).isEqualTo("+15555550100");
+        assertThat(PhoneNumberNormalizer.normalize("555 555 010")).isNull();
+        assertThat(PhoneNumberNormalizer.normalize("155-555-0100")).isNull();
+        assertThat(PhoneNumberNormalizer.normalize("555-CALL-NOW")).isNull();
+    }
+
+    @Test
+    void keepsInternationalNumbers() {
+        String canonical = "+442079460958";
+        assertThat(PhoneNumberNormalizer.normalize(canonical)).isSameAs(canonical);
+        assertThat(PhoneNumberNormalizer.normalize("+44 20 7946 0958")).isEqualTo(canonical);
+        assertThat(PhoneNumberNormalizer.normalize("+0 20 7946 0958")).isNull();
+        assertThat(PhoneNumberNormalizer.normalize("+1234567890123456")).isNull();
+    }
+
+    @Test
+    void reportsRejectedNumbers() {
+        PhoneNumberNormalizer.Validation validation = PhoneNumberNormalizer.validateAll(
+                List.of("555-555-0100", "not a number", "+15555550101"));
+
+        assertThat(validation.getValid()).containsExactly("+15555550100", "+15555550101");
+        assertThat(validation.getRejected()).containsExactly("not a number");
+    }
+}
@@ -0,0 +1,61 @@
+package com._3cloudsolutions.smssender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmsCircuitBreakerTest {
+
+    @Test
+    void opensAtFailureRateThenProbesAndCloses() throws InterruptedException {
+        List<SmsCircuitBreaker.State> transitions = new ArrayList<>();
+        SmsCircuitBreaker breaker = new SmsCircuitBreaker(0.5, 10, 4, TimeUnit.MILLISECONDS.toNanos(50), 2,
+                transitions::add);
+
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.CLOSED);
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.CLOSED);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        Thread.sleep(60);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly(SmsCircuitBreaker.State.OPEN, SmsCircuitBreaker.State.HALF_OPEN,
+                SmsCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedOrAbandonedProbes() throws InterruptedException {
+        SmsCircuitBreaker breaker = new SmsCircuitBreaker(0.5, 2, 2, TimeUnit.MILLISECONDS.toNanos(20), 1, state -> { });
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.OPEN);
+
+        Thread.sleep(30);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.release();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(SmsCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,124 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsIdempotencyConfig;
+import com.azure.communication.sms.models.SmsSendResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SmsIdempotencyServiceTest {
+
+    private static final String TO = "+15555550100";
+
+    private SmsService smsService;
+    private SmsIdempotencyConfig config;
+
+    @BeforeEach
+    void setUp() {
+        smsService = mock(SmsService.class);
+        config = new SmsIdempotencyConfig();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneSend() {
+        Sinks.One<SmsSendResult> provider = Sinks.one();
+        when(smsService.sendAsyncText(TO, "hello")).thenReturn(provider.asMono());
+        SmsIdempotencyService service = service();
+
+        CompletableFuture<SmsSendResult> first = service.sendAsyncText("key-1", TO, "hello").toFuture();
+        CompletableFuture<SmsSendResult> second = service.sendAsyncText("key-1", TO, "hello").toFuture();
+        assertThat(first).isNotDone();
+        provider.tryEmitValue(sent("id-1"));
+
+        assertThat(first.join().getMessageId()).isEqualTo("id-1");
+        assertThat(second.join().getMessageId()).isEqualTo("id-1");
+        verify(smsService, times(1)).sendAsyncText(TO, "hello");
+        assertThat(service.getHits()).isEqualTo(1);
+        assertThat(service.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void aCancelledWaiterLeavesTheSendToTheOthers() {
+        Sinks.One<SmsSendResult> provider = Sinks.one();
+        when(smsService.sendAsyncText(TO, "hello")).thenReturn(provider.asMono());
+        SmsIdempotencyService service = service();
+
+        Disposable first = service.sendAsyncText("key-1", TO, "hello").subscribe();
+        CompletableFuture<SmsSendResult> second = service.sendAsyncText("key-1", TO, "hello").toFuture();
+        first.dispose();
+        provider.tryEmitValue(sent("id-1"));
+
+        assertThat(second.join().getMessageId()).isEqualTo("id-1");
+        assertThat(service.sendAsyncText("key-1", TO, "hello").block().getMessageId()).isEqualTo("id-1");
+        verify(smsService, times(1)).sendAsyncText(TO, "hello");
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentMessage() {
+        when(smsService.sendText(TO, "hello")).thenReturn(sent("id-1"));
+        SmsIdempotencyService service = service();
+
+        service.sendText("key-1", TO, "hello");
+
+        assertThatThrownBy(() -> service.sendText("key-1", TO, "goodbye"))
+                .isInstanceOf(SmsIdempotencyConflictException.class);
+        assertThatThrownBy(() -> service.sendAsyncText("key-1", "+15555550101", "hello").block())
+                .isInstanceOf(SmsIdempotencyConflictException.class);
+        verify(smsService, times(1)).sendText(TO, "hello");
+    }
+
+    @Test
+    void sendsAgainOnceTheTtlHasPassed() {
+        config.setTtl(Duration.ofMinutes(10));
+        when(smsService.sendText(TO, "hello")).thenReturn(sent("id-1"), sent("id-2"));
+        AtomicLong now = new AtomicLong();
+        SmsIdempotencyService service = new SmsIdempotencyService(smsService, config, new SimpleMeterRegistry(),
+                now::get);
+
+        assertThat(service.sendText(null, TO, "hello").getMessageId()).isEqualTo("id-1");
+        now.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(service.sendText(null, TO, "hello").getMessageId()).isEqualTo("id-1");
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        assertThat(service.sendText(null, TO, "hello").getMessageId()).isEqualTo("id-2");
+        verify(smsService, times(2)).sendText(TO, "hello");
+    }
+
+    @Test
+    void forgetsFailedSends() {
+        when(smsService.sendAsyncText(TO, "hello"))
+                .thenReturn(Mono.error(new SmsTimeoutException(null)))
+                .thenReturn(Mono.just(new SmsSendResult(TO, null, 400, false, "rejected")))
+                .thenReturn(Mono.just(sent("id-1")));
+        SmsIdempotencyService service = service();
+
+        assertThatThrownBy(() -> service.sendAsyncText("key-1", TO, "hello").block())
+                .isInstanceOf(SmsTimeoutException.class);
+        assertThat(service.sendAsyncText("key-1", TO, "hello").block().isSuccessful()).isFalse();
+        assertThat(service.sendAsyncText("key-1", TO, "hello").block().getMessageId()).isEqualTo("id-1");
+        assertThat(service.sendAsyncText("key-1", TO, "hello").block().getMessageId()).isEqualTo("id-1");
+        verify(smsService, times(3)).sendAsyncText(TO, "hello");
+    }
+
+    private SmsIdempotencyService service() {
+        return new SmsIdempotencyService(smsService, config, new SimpleMeterRegistry());
+    }
+
+    private static SmsSendResult sent(String messageId) {
+        return new SmsSendResult(TO, messageId, 202, true, null);
+    }
+}
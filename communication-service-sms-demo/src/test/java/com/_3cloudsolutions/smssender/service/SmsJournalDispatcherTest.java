@@ -0,0 +1,49 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsJournalConfig;
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com._3cloudsolutions.smssender.models.BulkSmsSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SmsJournalDispatcherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void queuesOnlyTheUnsentRecipientsAgain() throws Exception {
+        SmsJournalConfig config = new SmsJournalConfig();
+        config.setPath(directory.toString());
+        config.setCapacity(4096);
+        SmsJournal journal = new SmsJournal(config);
+        journal.append("+15555550100", "first");
+        journal.append("+15555550101", "second");
+        journal.append("+15555550102", "third");
+
+        SmsService smsService = mock(SmsService.class);
+        when(smsService.sendBulkText(any(), any())).thenAnswer(invocation -> {
+            List<BulkSmsRequest> requests = invocation.<Flux<BulkSmsRequest>>getArgument(0).collectList().block();
+            invocation.<Consumer<List<BulkSmsRequest>>>getArgument(1).accept(List.of(requests.get(1)));
+            return Mono.just(new BulkSmsSummary());
+        });
+
+        new SmsJournalDispatcher(journal, smsService, config).dispatch();
+
+        verify(smsService, times(1)).sendBulkText(any(), any());
+        assertThat(journal.read(10).getRequests()).extracting("to").containsExactly("+15555550101");
+    }
+}
@@ -0,0 +1,98 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsJournalConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmsJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysUnacknowledgedEntriesAfterRestart() throws Exception {
+        SmsJournal journal = new SmsJournal(config(4096));
+        journal.append("+15555550100", "first");
+        journal.append("+15555550101", "second");
+        journal.append("+15555550102", "third");
+
+        SmsJournal.Batch first = journal.read(1);
+        journal.acknowledge(first.getNextOffset());
+
+        SmsJournal reopened = new SmsJournal(config(4096));
+        SmsJournal.Batch replayed = reopened.read(10);
+        assertThat(replayed.getRequests()).extracting("to").containsExactly("+15555550101", "+15555550102");
+        assertThat(replayed.getRequests()).extracting("message").containsExactly("second", "third");
+    }
+
+    @Test
+    void rewindsOnceDrainedAndRejectsWhenFull() throws Exception {
+        SmsJournal journal = new SmsJournal(config(128));
+        journal.append("+15555550100", "a message that fills most of the journal file");
+        assertThatThrownBy(() -> journal.append("+15555550101", "a message that fills most of the journal file"))
+                .isInstanceOf(IllegalStateException.class);
+
+        journal.acknowledge(journal.read(10).getNextOffset());
+        journal.append("+15555550101", "a message that fills most of the journal file");
+        assertThat(journal.read(10).getRequests()).extracting("to").containsExactly("+15555550101");
+    }
+
+    @Test
+    void wrapsAroundWhileTheDispatcherLagsBehind() throws Exception {
+        SmsJournal journal = new SmsJournal(config(512));
+        int read = 0;
+        for (int i = 0; i < 100; i++) {
+            journal.append(String.format("+1555555%04d", i), "message " + i);
+            if (i % 2 == 1) {
+                // Keep one message unacknowledged so the journal never drains and rewinds
+                SmsJournal.Batch batch = journal.read(i - read);
+                assertThat(batch.getRequests()).extracting("message")
+                        .containsExactly(IntStream.range(read, i).mapToObj(n -> "message " + n).toArray());
+                journal.acknowledge(batch.getNextOffset());
+                read = i;
+            }
+        }
+
+        SmsJournal reopened = new SmsJournal(config(512));
+        assertThat(reopened.read(10).getRequests()).extracting("message").containsExactly("message 99");
+    }
+
+    @Test
+    void requeuesOnlyTheGivenRequestsAndLeavesTheBatchWhenTheyDoNotFit() throws Exception {
+        SmsJournal journal = new SmsJournal(config(4096));
+        journal.append("+15555550100", "first");
+        journal.append("+15555550101", "second");
+        SmsJournal.Batch batch = journal.read(10);
+
+        journal.requeue(batch.getNextOffset(), List.of(batch.getRequests().get(1)));
+        assertThat(journal.read(10).getRequests()).extracting("to").containsExactly("+15555550101");
+
+        // Room to append one of the two again but not both
+        SmsJournal full = new SmsJournal(config(5000, "full"));
+        full.append("+15555550100", "x".repeat(1500));
+        full.append("+15555550101", "x".repeat(1500));
+        SmsJournal.Batch fullBatch = full.read(10);
+        assertThatThrownBy(() -> full.requeue(fullBatch.getNextOffset(), fullBatch.getRequests()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(full.read(10).getRequests()).extracting("to").containsExactly("+15555550100", "+15555550101");
+        assertThat(new SmsJournal(config(5000, "full")).read(10).getRequests()).hasSize(2);
+    }
+
+    private SmsJournalConfig config(int capacity) {
+        return config(capacity, "journal");
+    }
+
+    private SmsJournalConfig config(int capacity, String name) {
+        SmsJournalConfig config = new SmsJournalConfig();
+        config.setPath(directory.resolve(name).toString());
+        config.setCapacity(capacity);
+        return config;
+    }
+}
@@ -0,0 +1,47 @@
+package com._3cloudsolutions.smssender.service;
+
+import com.azure.communication.sms.models.SmsSendResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmsMetricsTest {
+
+    @Test
+    void timesCallsAndCountsRecipients() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SmsMetrics metrics = new SmsMetrics(registry);
+
+        metrics.record("groupText", 3, Mono.just("sent")).block();
+        metrics.record("asyncText", 1, Mono.just("sent")).block();
+
+        assertThat(registry.get("sms.send").tags("operation", "groupText", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("sms.send").tags("operation", "asyncText", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("sms.send.recipients").tag("operation", "groupText").summary().totalAmount())
+                .isEqualTo(3);
+        assertThat(registry.get("sms.send.in.flight").tag("operation", "asyncText").gauge().value()).isZero();
+    }
+
+    @Test
+    void countsFailuresByTypeAndProviderCode() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SmsMetrics metrics = new SmsMetrics(registry);
+
+        assertThatThrownBy(() -> metrics.record("text", 1, Mono.error(new IllegalStateException("down"))).block())
+                .isInstanceOf(IllegalStateException.class);
+        metrics.recordResult("text", new SmsSendResult("+15555550100", null, 400, false, "invalid"));
+        metrics.recordResult("text", new SmsSendResult("+15555550101", "id", 202, true, null));
+
+        assertThat(registry.get("sms.send").tags("operation", "text", "outcome", "error").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("sms.send.errors").tags("type", "IllegalStateException", "code", "none")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("sms.send.errors").tags("type", "provider", "code", "400")
+                .counter().count()).isEqualTo(1);
+    }
+}
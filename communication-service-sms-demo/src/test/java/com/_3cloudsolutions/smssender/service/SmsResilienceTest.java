@@ -0,0 +1,124 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsResilienceConfig;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SmsResilienceTest {
+
+    private SimpleMeterRegistry registry;
+    private SmsResilience resilience;
+
+    @BeforeEach
+    void setUp() {
+        SmsResilienceConfig config = new SmsResilienceConfig();
+        config.setAttemptTimeout(Duration.ofMillis(100));
+        config.setDeadline(Duration.ofSeconds(1));
+        config.setMaxRetries(2);
+        config.setRetryBackoff(Duration.ofMillis(5));
+        config.getCircuitBreaker().setWindowSize(4);
+        config.getCircuitBreaker().setMinimumCalls(4);
+        config.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        registry = new SimpleMeterRegistry();
+        resilience = new SmsResilience(config, registry);
+    }
+
+    @Test
+    void retriesCallsTheProviderRejected() {
+        FaultyProvider provider = new FaultyProvider(2, 503);
+
+        assertThat(resilience.execute(provider.call()).block()).isEqualTo("sent");
+        assertThat(provider.calls.get()).isEqualTo(3);
+        assertThat(registry.get("sms.resilience.retries").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRetryWhatMayHaveBeenSent() {
+        FaultyProvider provider = new FaultyProvider(1, 500);
+
+        assertThatThrownBy(() -> resilience.execute(provider.call()).block()).isInstanceOf(HttpResponseException.class);
+        assertThat(provider.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesThrottlingToTheRateLimiter() {
+        FaultyProvider provider = new FaultyProvider(1, 429);
+
+        assertThatThrownBy(() -> resilience.execute(provider.call()).block()).isInstanceOf(HttpResponseException.class);
+        assertThat(provider.calls.get()).isEqualTo(1);
+        assertThat(registry.get("sms.resilience.retries").counter().count()).isZero();
+    }
+
+    @Test
+    void timesOutSlowCallsWithoutRetrying() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> slow = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.delay(Duration.ofSeconds(5)).thenReturn("sent");
+        });
+
+        assertThatThrownBy(() -> resilience.execute(slow).block()).isInstanceOf(SmsTimeoutException.class);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(registry.get("sms.resilience.timeouts").tag("scope", "attempt").counter().count()).isEqualTo(1);
+        assertThat(registry.get("sms.resilience.timeouts").tag("scope", "deadline").counter().count()).isZero();
+    }
+
+    @Test
+    void failsFastOnceTheCircuitOpens() {
+        FaultyProvider provider = new FaultyProvider(Integer.MAX_VALUE, 500);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> resilience.execute(provider.call()).block())
+                    .isInstanceOf(HttpResponseException.class);
+        }
+
+        assertThatThrownBy(() -> resilience.execute(provider.call()).block())
+                .isInstanceOf(SmsCircuitOpenException.class);
+        assertThat(provider.calls.get()).isEqualTo(4);
+        assertThat(resilience.getCircuitState()).isEqualTo(SmsCircuitBreaker.State.OPEN);
+        assertThat(registry.get("sms.circuit.state").tag("state", "open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void throttlingDoesNotOpenTheCircuit() {
+        FaultyProvider provider = new FaultyProvider(Integer.MAX_VALUE, 429);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> resilience.execute(provider.call()).block())
+                    .isInstanceOf(HttpResponseException.class);
+        }
+
+        assertThat(resilience.getCircuitState()).isEqualTo(SmsCircuitBreaker.State.CLOSED);
+    }
+
+    /**
+     * Stands in for the provider, answering the first failures calls with status and succeeding after that.
+     */
+    private static class FaultyProvider {
+        private final int failures;
+        private final HttpResponse response;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FaultyProvider(int failures, int status) {
+            this.failures = failures;
+            this.response = mock(HttpResponse.class);
+            when(response.getStatusCode()).thenReturn(status);
+        }
+
+        Mono<String> call() {
+            return Mono.defer(() -> calls.incrementAndGet() <= failures
+                    ? Mono.error(new HttpResponseException("injected", response))
+                    : Mono.just("sent"));
+        }
+    }
+}
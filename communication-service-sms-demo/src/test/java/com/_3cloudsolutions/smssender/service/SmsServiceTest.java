@@ -0,0 +1,113 @@
+package com._3cloudsolutions.smssender.service;
+
+import com._3cloudsolutions.smssender.config.SmsRateLimitConfig;
+import com._3cloudsolutions.smssender.config.SmsResilienceConfig;
+import com._3cloudsolutions.smssender.config.SmsServerConfig;
+import com._3cloudsolutions.smssender.models.BulkSmsRequest;
+import com._3cloudsolutions.smssender.models.BulkSmsSummary;
+import com.azure.communication.sms.SmsAsyncClient;
+import com.azure.communication.sms.models.SmsSendOptions;
+import com.azure.communication.sms.models.SmsSendResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SmsServiceTest {
+
+    private SmsAsyncClient smsAsyncClient;
+    private SmsServerConfig serverConfig;
+    private SmsRateLimitConfig rateLimitConfig;
+
+    @BeforeEach
+    void setUp() {
+        smsAsyncClient = mock(SmsAsyncClient.class);
+        when(smsAsyncClient.send(anyString(), any(Iterable.class), anyString(), any(SmsSendOptions.class)))
+                .thenAnswer(invocation -> {
+                    if ("fail".equals(invocation.getArgument(2))) {
+                        return Mono.error(new IllegalStateException("provider unavailable"));
+                    }
+                    List<SmsSendResult> results = new ArrayList<>();
+                    for (Object to : invocation.<Iterable<?>>getArgument(1)) {
+                        results.add(new SmsSendResult((String) to, "id-" + to, 202, true, null));
+                    }
+                    return Mono.just(results);
+                });
+        serverConfig = new SmsServerConfig();
+        serverConfig.setFromNumber("+18005550100");
+        rateLimitConfig = new SmsRateLimitConfig();
+        rateLimitConfig.setPermitsPerSecond(1_000_000);
+        rateLimitConfig.setBurst(1_000_000);
+    }
+
+    @Test
+    void rejectsBulkLinesWithoutAMessage() {
+        Flux<BulkSmsRequest> requests = Flux.just("+15555550100,hello", "+15555550101", "{\"to\":\"+15555550102\"}")
+                .map(line -> BulkSmsRequest.parse(line, null));
+
+        BulkSmsSummary summary = service().sendBulkText(requests).block();
+
+        assertThat(summary.getSent()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(2);
+        assertThat(summary.getFailedAddresses()).containsExactly("+15555550101", "+15555550102");
+    }
+
+    @Test
+    void countsMalformedLinesAndFailedBatchesInTheSummary() {
+        Flux<BulkSmsRequest> requests = Flux.just("+15555550100,hello", "{\"to\":", "+15555550101,fail",
+                "+15555550102,fail", "+15555550103,hello")
+                .map(line -> BulkSmsRequest.parse(line, null));
+        List<BulkSmsRequest> unsent = new ArrayList<>();
+
+        BulkSmsSummary summary = service().sendBulkText(requests, unsent::addAll).block();
+
+        assertThat(summary.getSent()).isEqualTo(2);
+        assertThat(summary.getFailed()).isEqualTo(3);
+        assertThat(summary.getFailedAddresses()).containsExactlyInAnyOrder("{\"to\":", "+15555550101", "+15555550102");
+        assertThat(unsent).extracting(BulkSmsRequest::getTo).containsExactly("+15555550101", "+15555550102");
+    }
+
+    @Test
+    void countsTemplateRowsMissingAFieldAsFailed() {
+        Flux<String> lines = Flux.just("{\"to\":\"+15555550100\",\"name\":\"Ann\"}", "{\"to\":\"+15555550101\"}");
+
+        BulkSmsSummary summary = service().sendTemplatedText(MessageTemplate.compile("Hi {{name}}"), lines).block();
+
+        assertThat(summary.getSent()).isEqualTo(1);
+        assertThat(summary.getFailedAddresses()).containsExactly("+15555550101");
+    }
+
+    @Test
+    void groupsLargerThanTheBurstWaitForTheRateLimiter() {
+        // The default burst, with the rate and max wait scaled so a 100 recipient group has to wait 90ms
+        rateLimitConfig.setPermitsPerSecond(1000);
+        rateLimitConfig.setBurst(10);
+        rateLimitConfig.setMaxWait(Duration.ofMillis(10));
+        SmsService service = service();
+        List<String> group = IntStream.range(0, 100).mapToObj(i -> String.format("+1555%07d", i))
+                .collect(Collectors.toList());
+
+        assertThat(service.sendGroupText(group, "hello")).hasSize(100).allMatch(SmsSendResult::isSuccessful);
+        assertThat(service.sendAsyncGroupText(group, "hello").collectList().block())
+                .hasSize(100).allMatch(SmsSendResult::isSuccessful);
+    }
+
+    private SmsService service() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new SmsService(smsAsyncClient, serverConfig, new SmsRateLimiter(rateLimitConfig),
+                new SmsMetrics(registry), new SmsResilience(new SmsResilienceConfig(), registry));
+    }
+}
@@ -0,0 +1,34 @@
+package com._3cloudsolutions.smssender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenQueuesThenSheds() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long maxWait = TimeUnit.SECONDS.toNanos(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.reserve(1, maxWait)).isZero();
+        }
+        assertThat(bucket.reserve(5, maxWait)).isPositive().isLessThanOrEqualTo(maxWait);
+        assertThat(bucket.reserve(20, maxWait)).isEqualTo(-1);
+    }
+
+    @Test
+    void adaptsRateWithinBounds() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        bucket.decrease(0.5, 4);
+        assertThat(bucket.getPermitsPerSecond()).isEqualTo(5);
+        bucket.decrease(0.5, 4);
+        assertThat(bucket.getPermitsPerSecond()).isEqualTo(4);
+        bucket.increase(100, 10);
+        assertThat(bucket.getPermitsPerSecond()).isEqualTo(10);
+    }
+}
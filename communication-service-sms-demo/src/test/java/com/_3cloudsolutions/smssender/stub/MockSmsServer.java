@@ -0,0 +1,86 @@
+package com._3cloudsolutions.smssender.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Standalone mock of the Communication Services SMS API for load testing without Azure. It runs in its own
+ * process so it does not compete with the application under test, accepts every recipient, and can add a
+ * fixed delay to stand in for the provider round trip.
+ *
+ * Usage: MockSmsServer [port] [latencyMillis], then run the application with --spring.profiles.active=mock
+ */
+public class MockSmsServer {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        LongAdder recipients = new LongAdder();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4));
+        server.createContext("/sms", exchange -> {
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                respond(exchange, recipients);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+            long sent = recipients.sumThenReset();
+            if (sent > 0) {
+                System.out.println(sent + " recipients/s");
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        System.out.println("mock sms endpoint listening on http://localhost:" + port);
+    }
+
+    private static void respond(HttpExchange exchange, LongAdder recipients) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode value = response.putArray("value");
+        for (JsonNode recipient : request.path("smsRecipients")) {
+            value.addObject()
+                    .put("to", recipient.path("to").asText())
+                    .put("messageId", "Outgoing_" + UUID.randomUUID())
+                    .put("httpStatusCode", 202)
+                    .put("repeatabilityResult", "accepted")
+                    .put("successful", true);
+            recipients.increment();
+        }
+
+        byte[] bytes = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(202, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
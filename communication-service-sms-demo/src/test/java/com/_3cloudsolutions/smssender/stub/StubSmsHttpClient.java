@@ -0,0 +1,106 @@
+package com._3cloudsolutions.smssender.stub;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * In-process stand-in for the SMS REST API, plugged into SmsClientBuilder as its HttpClient. Every request
+ * still goes through the SDK's pipeline and serialization, but answers immediately without a socket, so
+ * benchmarks measure this service rather than the network. Every recipient is accepted.
+ */
+public class StubSmsHttpClient implements HttpClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final HttpHeaders HEADERS = new HttpHeaders().set("Content-Type", "application/json");
+
+    @Override
+    public Mono<HttpResponse> send(HttpRequest request) {
+        return Mono.fromSupplier(() -> new StubResponse(request, respond(request.getBodyAsBinaryData().toBytes())));
+    }
+
+    private static byte[] respond(byte[] body) {
+        try {
+            JsonNode request = objectMapper.readTree(body);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("value");
+                for (JsonNode recipient : request.path("smsRecipients")) {
+                    json.writeStartObject();
+                    json.writeStringField("to", recipient.path("to").asText());
+                    json.writeStringField("messageId", "Outgoing_" + recipient.path("repeatabilityRequestId").asText());
+                    json.writeNumberField("httpStatusCode", 202);
+                    json.writeStringField("repeatabilityResult", "accepted");
+                    json.writeBooleanField("successful", true);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static class StubResponse extends HttpResponse {
+
+        private final byte[] body;
+
+        StubResponse(HttpRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 202;
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return HEADERS.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return HEADERS;
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody() {
+            return Flux.just(ByteBuffer.wrap(body));
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray() {
+            return Mono.just(body);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString() {
+            return Mono.just(new String(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset) {
+            return Mono.just(new String(body, charset));
+        }
+    }
+}